@@ -38,4 +38,13 @@ public class Main extends Application {
     primaryStage.initStyle(StageStyle.UNDECORATED);
     Session.start(primaryStage);  /* start the Application session */
   }
+
+  /**
+   * Called by JavaFX when the application exits.
+   * Closes the database connections held by the session.
+   */
+  @Override
+  public void stop() {
+    Session.shutdown();
+  }
 }
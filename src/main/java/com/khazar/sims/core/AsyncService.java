@@ -0,0 +1,250 @@
+package com.khazar.sims.core;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.khazar.sims.database.QueryContext;
+
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
+
+/**
+ * Runs controller background work (JavaFX {@link Task}s) on virtual threads.
+ *
+ * Every task holds one permit while it runs, and there are as many permits as pooled
+ * database connections, so a burst of UI actions queues here instead of piling up
+ * in {@code ConnectionPool.borrow()}. AsyncDao runs its calls on the same executor under the
+ * same permits. A thread that blocks on such a call lends its permit out meanwhile
+ * ({@link #lendPermit()}), so a task waiting for its own queries cannot starve them.
+ *
+ * {@link #submitLatest} gives "latest request wins" semantics per owner and key: submitting
+ * a new task cancels the previous one, and a superseded task never delivers its
+ * succeeded/failed event, even if it finished before it could be cancelled. This only covers
+ * handlers registered with setOnSucceeded/setOnFailed; overriding Task.succeeded() bypasses it.
+ *
+ * Each task runs inside its own {@link QueryContext}; cancelling the task also cancels the
+ * statements it is executing, so abandoned queries stop on the server as well. Tasks are
+ * cancelled without interrupting their thread: an interrupt during socket I/O would close
+ * the pooled connection, whereas a cancelled statement just fails and the task ends.
+ * {@link #cancelAll(Object)} cancels everything an owner (a controller) submitted; UIManager
+ * calls it when the owner's view is replaced.
+ *
+ * Tasks must be submitted from the JavaFX application thread.
+ */
+public class AsyncService {
+  private final ExecutorService executor =
+    Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sims-async-", 0).factory());
+  private final Semaphore permits;
+
+  /* The service whose permit the current thread holds, if any */
+  private static final ThreadLocal<AsyncService> PERMIT_HOLDER = new ThreadLocal<>();
+
+  /* Most recent task per owner and key. Entries are removed on the FX thread when that task finishes. */
+  private final Map<Key, Task<?>> latest = new ConcurrentHashMap<>();
+  /* Unfinished tasks per owner, for cancelAll. Only touched on the FX thread. */
+  private final Map<Object, Set<Task<?>>> owned = new IdentityHashMap<>();
+
+  /**
+   * @param maxConcurrency maximum number of tasks running at once (usually the pool size)
+   */
+  public AsyncService(int maxConcurrency) {
+    if (maxConcurrency < 1)
+      throw new IllegalArgumentException("Concurrency must be at least 1.");
+    this.permits = new Semaphore(maxConcurrency, true);
+  }
+
+  /**
+   * Runs a task in the background. The task is not tied to any view, so navigation does not
+   * cancel it; use this for saves and deletes that must complete.
+   *
+   * @return the same task, for chaining
+   */
+  public <T> Task<T> submit(Task<T> task) {
+    QueryContext context = new QueryContext();
+    /* Statement.cancel() talks to the server, so keep it off the FX thread */
+    task.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, e -> {
+      if (!executor.isShutdown()) executor.execute(context::cancel);
+    });
+    executor.execute(() -> context.runWith(() -> run(task)));
+    return task;
+  }
+
+  /**
+   * Runs a task owned by {@code owner} (normally the submitting controller).
+   * It is cancelled when the owner's view is replaced.
+   */
+  public <T> Task<T> submit(Object owner, Task<T> task) {
+    track(owner, task);
+    return submit(task);
+  }
+
+  /**
+   * Runs a task and cancels the task previously submitted by {@code owner} under {@code key}.
+   * Use one key per independent load, e.g. {@code "roster"}; only the newest task's handlers fire.
+   *
+   * @return the same task, for chaining
+   */
+  public <T> Task<T> submitLatest(Object owner, String key, Task<T> task) {
+    Key slot = new Key(owner, key);
+    /* Filters run before the onSucceeded/onFailed handlers; consuming the event suppresses them */
+    task.addEventFilter(WorkerStateEvent.ANY, e -> {
+      if (e.getEventType() == WorkerStateEvent.WORKER_STATE_SUCCEEDED
+          || e.getEventType() == WorkerStateEvent.WORKER_STATE_FAILED) {
+        if (!latest.remove(slot, task)) {
+          e.consume();
+        }
+      }
+      else if (e.getEventType() == WorkerStateEvent.WORKER_STATE_CANCELLED) {
+        latest.remove(slot, task);
+      }
+    });
+
+    Task<?> previous = latest.put(slot, task);
+    if (previous != null) {
+      previous.cancel(false);
+    }
+    return submit(owner, task);
+  }
+
+  /**
+   * Cancels every unfinished task submitted by {@code owner}.
+   */
+  public void cancelAll(Object owner) {
+    Set<Task<?>> tasks = owned.remove(owner);
+    if (tasks == null)
+      return;
+    latest.keySet().removeIf(slot -> slot.owner == owner);
+    for (Task<?> task : tasks.toArray(new Task<?>[0])) {
+      task.cancel(false);
+    }
+  }
+
+  private void track(Object owner, Task<?> task) {
+    Set<Task<?>> tasks = owned.computeIfAbsent(owner, o -> Collections.newSetFromMap(new IdentityHashMap<>()));
+    tasks.add(task);
+    /* A filter, so it still runs when submitLatest suppresses a superseded task's events */
+    task.addEventFilter(WorkerStateEvent.ANY, e -> {
+      if (task.isDone()) {
+        tasks.remove(task);
+        if (tasks.isEmpty()) owned.remove(owner, tasks);
+      }
+    });
+  }
+
+  private void run(Task<?> task) {
+    /* Cancelled while queued: skip without taking a permit */
+    if (task.isCancelled())
+      return;
+    try {
+      acquirePermit();
+    }
+    catch (InterruptedException e) {
+      task.cancel(false);
+      return;
+    }
+    try {
+      task.run();
+    }
+    finally {
+      releasePermit();
+    }
+  }
+
+  /* ---------- Executor and permits, shared with AsyncDao ---------- */
+
+  /**
+   * Runs {@code work} on the service's virtual threads without taking a permit.
+   * @throws java.util.concurrent.RejectedExecutionException after {@link #shutdown()}
+   */
+  public void execute(Runnable work) {
+    executor.execute(work);
+  }
+
+  /**
+   * Takes a permit for the calling thread, waiting while all of them are in use.
+   * Pair every call with {@link #releasePermit()} on the same thread.
+   */
+  public void acquirePermit() throws InterruptedException {
+    permits.acquire();
+    PERMIT_HOLDER.set(this);
+  }
+
+  public void releasePermit() {
+    PERMIT_HOLDER.remove();
+    permits.release();
+  }
+
+  /**
+   * Gives the calling thread's permit back until the returned loan is repaid, for the time
+   * it blocks waiting on other permitted work. Threads without a permit get a no-op loan.
+   *
+   * <pre>
+   * AsyncService.Loan loan = AsyncService.lendPermit();
+   * try {
+   *   return future.get();
+   * }
+   * finally {
+   *   loan.repay();
+   * }
+   * </pre>
+   */
+  public static Loan lendPermit() {
+    AsyncService holder = PERMIT_HOLDER.get();
+    if (holder == null)
+      return () -> {};
+    holder.releasePermit();
+    return () -> {
+      /* the caller goes on with its own work, so it must not fail here */
+      holder.permits.acquireUninterruptibly();
+      PERMIT_HOLDER.set(holder);
+    };
+  }
+
+  /**
+   * A lent permit; repaying it takes the permit back.
+   */
+  @FunctionalInterface
+  public interface Loan {
+    void repay();
+  }
+
+  /**
+   * Cancels every tracked task and stops accepting work. Called from Session.shutdown().
+   */
+  public void shutdown() {
+    for (Object owner : owned.keySet().toArray()) {
+      cancelAll(owner);
+    }
+    latest.values().forEach(task -> task.cancel(false));
+    latest.clear();
+    executor.shutdown();
+  }
+
+  /* ---------- Keys ---------- */
+
+  private static final class Key {
+    private final Object owner;
+    private final String name;
+
+    Key(Object owner, String name) {
+      this.owner = owner;
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key other)) return false;
+      return owner == other.owner && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() { return 31 * System.identityHashCode(owner) + Objects.hashCode(name); }
+  }
+}
@@ -0,0 +1,308 @@
+package com.khazar.sims.core;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+import com.khazar.sims.database.table.TableListener;
+
+/**
+ * Typo-tolerant in-memory search over rows keyed by id, e.g. users by name and email.
+ *
+ * Texts are folded to plain lower-case Latin (Azerbaijani ə, ı, ö, ü, ş, ç, ğ become
+ * e, i, o, u, s, c, g) and split into words. Each word's character trigrams, padded so the start
+ * of a word weighs more, go into posting lists. A query counts the trigrams it shares with
+ * every row, keeps the best {@code MAX_CANDIDATES} rows, and ranks them by trigram overlap
+ * combined with the edit distance between query and row words. "Mammadov", "Məmmədov" and
+ * "Mamedov" then find each other; transposed letters ("Jhon") are caught by the edit distance.
+ *
+ * Rows are added one at a time ({@link #put}), so the index can be filled by a streaming scan
+ * and kept current as a {@link TableListener} of the table it mirrors. All methods are
+ * synchronized; a search over 50k users touches a few thousand postings and takes milliseconds.
+ */
+public class FuzzyIndex<T> implements TableListener<T> {
+  private static final int MAX_CANDIDATES = 200;
+  private static final double MIN_SCORE = 0.45;
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+  private final ToIntFunction<T> idOf;
+  private final Function<T, String[]> keys;
+
+  /* Row storage by slot; freed slots are reused */
+  private final Map<Integer, Integer> slotOfId = new HashMap<>();
+  private final Deque<Integer> freeSlots = new ArrayDeque<>();
+  private Object[] slotRows = new Object[0];
+  private String[][] slotWords = new String[0][];
+  private long[][] slotGrams = new long[0][];
+  private int slotCount = 0;
+
+  /* Trigram -> slots containing it */
+  private final Map<Long, IntList> postings = new HashMap<>();
+
+  /* Per-search scratch: shared trigram count per slot, and the slots touched */
+  private int[] shared = new int[0];
+  private final IntList touched = new IntList();
+
+  private volatile boolean ready = false;
+
+  /**
+   * @param idOf the row's primary key
+   * @param keys the searchable texts of a row; null entries are ignored
+   */
+  public FuzzyIndex(ToIntFunction<T> idOf, Function<T, String[]> keys) {
+    this.idOf = idOf;
+    this.keys = keys;
+  }
+
+  /** @return true once the initial fill has completed (see {@link #markReady()}) */
+  public boolean isReady() { return ready; }
+
+  /** Marks the end of the initial fill; searches before that see a partial index. */
+  public void markReady() { ready = true; }
+
+  /* ---------------------- UPDATES ---------------------- */
+
+  /**
+   * Adds the row, or replaces the row with the same id.
+   */
+  public synchronized void put(T row) {
+    int id = idOf.applyAsInt(row);
+    remove(id);
+
+    String[] words = words(keys.apply(row));
+    long[] grams = trigrams(words);
+
+    int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+    ensureCapacity(slotCount);
+    slotRows[slot] = row;
+    slotWords[slot] = words;
+    slotGrams[slot] = grams;
+    slotOfId.put(id, slot);
+
+    for (long gram : grams) {
+      postings.computeIfAbsent(gram, g -> new IntList()).add(slot);
+    }
+  }
+
+  public synchronized void remove(int id) {
+    Integer slot = slotOfId.remove(id);
+    if (slot == null)
+      return;
+
+    for (long gram : slotGrams[slot]) {
+      IntList list = postings.get(gram);
+      if (list == null) continue;
+      list.remove(slot);
+      if (list.size == 0) postings.remove(gram);
+    }
+    slotRows[slot] = null;
+    slotWords[slot] = null;
+    slotGrams[slot] = null;
+    freeSlots.push(slot);
+  }
+
+  public synchronized int size() { return slotOfId.size(); }
+
+  @Override public void onAdded(T row) { put(row); }
+  @Override public void onUpdated(T row) { put(row); }
+  @Override public void onDeleted(int id) { remove(id); }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= slotRows.length)
+      return;
+    int size = Math.max(capacity, slotRows.length * 2 + 16);
+    slotRows = Arrays.copyOf(slotRows, size);
+    slotWords = Arrays.copyOf(slotWords, size);
+    slotGrams = Arrays.copyOf(slotGrams, size);
+    shared = Arrays.copyOf(shared, size);
+  }
+
+  /* ---------------------- SEARCH ---------------------- */
+
+  /**
+   * @return up to {@code limit} rows resembling the query, best first
+   */
+  public List<T> search(String query, int limit) {
+    return search(query, limit, row -> true);
+  }
+
+  /**
+   * Like {@link #search(String, int)}, considering only rows accepted by the filter
+   * (e.g. one role, or the students of one course).
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized List<T> search(String query, int limit, Predicate<? super T> filter) {
+    String[] queryWords = words(new String[] { query });
+    long[] queryGrams = trigrams(queryWords);
+    if (queryGrams.length == 0 || limit <= 0)
+      return List.of();
+
+    /*
+     * Shared trigram counts. Trigrams found in most rows (a common email domain) don't tell rows
+     * apart; they are skipped when the query has others, which keeps the candidate set small.
+     */
+    int common = Math.max(1, slotOfId.size() / 2);
+    touched.size = 0;
+    for (long gram : queryGrams) {
+      IntList list = postings.get(gram);
+      if (list == null) continue;
+      if (list.size > common && queryGrams.length > 3) continue;
+      for (int i = 0; i < list.size; i++) {
+        int slot = list.values[i];
+        if (shared[slot]++ == 0) touched.add(slot);
+      }
+    }
+
+    /* Best candidates by shared count, packed as (count, slot) so they sort without boxing */
+    long[] packed = new long[touched.size];
+    int packedCount = 0;
+    for (int i = 0; i < touched.size; i++) {
+      int slot = touched.values[i];
+      if (filter.test((T) slotRows[slot]))
+        packed[packedCount++] = ((long) shared[slot] << 32) | slot;
+    }
+    Arrays.sort(packed, 0, packedCount);
+
+    /* Rerank: trigram coverage of the query plus word-level edit similarity */
+    List<Scored<T>> scored = new ArrayList<>();
+    for (int i = packedCount - 1; i >= 0 && i >= packedCount - MAX_CANDIDATES; i--) {
+      int slot = (int) packed[i];
+      int count = (int) (packed[i] >>> 32);
+      double coverage = (double) count / queryGrams.length;
+      double score = 0.5 * coverage + 0.5 * wordSimilarity(queryWords, slotWords[slot]);
+      if (score >= MIN_SCORE)
+        scored.add(new Scored<>((T) slotRows[slot], score));
+    }
+
+    for (int i = 0; i < touched.size; i++) shared[touched.values[i]] = 0;
+
+    scored.sort((a, b) -> Double.compare(b.score, a.score));
+    List<T> result = new ArrayList<>(Math.min(limit, scored.size()));
+    for (int i = 0; i < scored.size() && i < limit; i++) result.add(scored.get(i).row);
+    return result;
+  }
+
+  /* Mean over query words of the best 1 - distance/length against any row word */
+  private static double wordSimilarity(String[] queryWords, String[] rowWords) {
+    double total = 0;
+    for (String q : queryWords) {
+      double best = 0;
+      for (String w : rowWords) {
+        /* A query word may be the beginning of a longer word (partial email, unfinished name) */
+        String target = w.length() > q.length() + 2 ? w.substring(0, q.length() + 1) : w;
+        int length = Math.max(q.length(), target.length());
+        double similarity = 1.0 - (double) editDistance(q, target) / length;
+        if (similarity > best) best = similarity;
+      }
+      total += best;
+    }
+    return total / queryWords.length;
+  }
+
+  /* Optimal string alignment distance: Levenshtein plus adjacent transpositions */
+  private static int editDistance(String a, String b) {
+    int n = a.length();
+    int m = b.length();
+    int[] prev2 = new int[m + 1];
+    int[] prev = new int[m + 1];
+    int[] cur = new int[m + 1];
+    for (int j = 0; j <= m; j++) prev[j] = j;
+
+    for (int i = 1; i <= n; i++) {
+      cur[0] = i;
+      for (int j = 1; j <= m; j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+          d = Math.min(d, prev2[j - 2] + 1);
+        cur[j] = d;
+      }
+      int[] tmp = prev2;
+      prev2 = prev;
+      prev = cur;
+      cur = tmp;
+    }
+    return prev[m];
+  }
+
+  /* ---------------------- TEXT ---------------------- */
+
+  /**
+   * Folds a text to lower-case ASCII-like letters: strips accents and maps the Azerbaijani
+   * letters without a decomposition.
+   */
+  static String fold(String text) {
+    String lower = text.toLowerCase(Locale.ROOT).replace('\u0259', 'e').replace('\u0131', 'i'); /* ə, ı */
+    return MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+  }
+
+  private static String[] words(String[] texts) {
+    Set<String> words = new LinkedHashSet<>();
+    for (String text : texts) {
+      if (text == null) continue;
+      for (String word : fold(text).split("[^\\p{L}\\p{N}]+")) {
+        if (!word.isEmpty()) words.add(word);
+      }
+    }
+    return words.toArray(new String[0]);
+  }
+
+  /* Distinct trigrams of "  word ", each packed into a long */
+  private static long[] trigrams(String[] words) {
+    Set<Long> grams = new LinkedHashSet<>();
+    for (String word : words) {
+      String padded = "  " + word + " ";
+      for (int i = 0; i + 3 <= padded.length(); i++) {
+        grams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+      }
+    }
+    long[] result = new long[grams.size()];
+    int i = 0;
+    for (long gram : grams) result[i++] = gram;
+    return result;
+  }
+
+  /* ---------------------- HELPERS ---------------------- */
+
+  private static final class Scored<T> {
+    private final T row;
+    private final double score;
+
+    Scored(T row, double score) {
+      this.row = row;
+      this.score = score;
+    }
+  }
+
+  /* Growable int array for posting lists */
+  private static final class IntList {
+    private int[] values = new int[4];
+    private int size = 0;
+
+    void add(int value) {
+      if (size == values.length) values = Arrays.copyOf(values, size * 2);
+      values[size++] = value;
+    }
+
+    void remove(int value) {
+      for (int i = 0; i < size; i++) {
+        if (values[i] == value) {
+          values[i] = values[--size];
+          return;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package com.khazar.sims.core;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+
+/**
+ * Feeds a TableView from a keyset-paginated query, one page at a time as the user scrolls.
+ *
+ * The first page and the total count are loaded by {@link #reload()}. After that, whenever a row
+ * within {@code PREFETCH_ROWS} of the end of the table is rendered, the page after the last
+ * loaded key is fetched and appended. Only rows that have been scrolled near are ever loaded,
+ * so the view opens in one small query however large the table is.
+ *
+ * If the query has no rows at all, an optional fallback (see {@link #setFallback}) may supply
+ * substitute rows, e.g. close matches for a search. Those are shown as one complete list
+ * without paging, since their keys mean nothing to the page query.
+ *
+ * Loads go through {@link AsyncService#submitLatest} under the owner and key given, so a reload
+ * supersedes a page still in flight and navigating away cancels both.
+ *
+ * Installs its own row factory on the table. Must be used from the JavaFX application thread.
+ */
+public class PagedTable<T> {
+  private static final int PREFETCH_ROWS = 10;
+
+  /**
+   * Returns the rows after {@code afterKey}, in key order, e.g. {@code BaseTable::getPage}.
+   */
+  @FunctionalInterface
+  public interface PageQuery<T> {
+    List<T> fetch(int afterKey, int limit) throws SQLException;
+  }
+
+  /**
+   * Returns the total number of rows, e.g. {@code BaseTable::count}.
+   */
+  @FunctionalInterface
+  public interface CountQuery {
+    int count() throws SQLException;
+  }
+
+  private final Object owner;
+  private final String key;
+  private final ToIntFunction<T> keyOf;
+  private final PageQuery<T> pages;
+  private final CountQuery counter;
+  private final int pageSize;
+
+  /**
+   * Returns substitute rows for an empty result, in display order.
+   */
+  @FunctionalInterface
+  public interface FallbackQuery<T> {
+    List<T> fetch() throws SQLException;
+  }
+
+  private final ObservableList<T> items = FXCollections.observableArrayList();
+  private int totalCount = 0;
+  private boolean loading = false;
+  private boolean exhausted = false;
+  private FallbackQuery<T> fallback = null;
+  private boolean showingFallback = false;
+
+  private Runnable onLoaded = () -> {};
+  private Consumer<Throwable> onFailed = e -> {};
+
+  /**
+   * @param table    the view to fill; its items are set by the caller (see {@link #getItems()})
+   * @param owner    the controller, for cancellation on navigation
+   * @param key      the submitLatest key for this list's loads
+   * @param keyOf    the seek key of a row (its primary key)
+   * @param pages    the page query
+   * @param counter  the total count query
+   * @param pageSize rows per page
+   */
+  public PagedTable(TableView<T> table, Object owner, String key, ToIntFunction<T> keyOf,
+                    PageQuery<T> pages, CountQuery counter, int pageSize) {
+    if (pageSize < 1)
+      throw new IllegalArgumentException("Page size must be at least 1.");
+    this.owner = owner;
+    this.key = key;
+    this.keyOf = keyOf;
+    this.pages = pages;
+    this.counter = counter;
+    this.pageSize = pageSize;
+
+    /* Rows only exist for the visible part of the table, so their indices track the scroll position */
+    table.setRowFactory(view -> new TableRow<>() {
+      @Override
+      public void updateIndex(int index) {
+        super.updateIndex(index);
+        if (index >= 0 && index >= view.getItems().size() - PREFETCH_ROWS)
+          loadMore();
+      }
+    });
+  }
+
+  /**
+   * Rows loaded so far. Set it (or a FilteredList/SortedList over it) as the table's items.
+   */
+  public ObservableList<T> getItems() { return items; }
+
+  /** @return the row count reported by the last reload */
+  public int getTotalCount() { return totalCount; }
+
+  /** @return true once the last page has been loaded */
+  public boolean isExhausted() { return exhausted; }
+
+  /** @return true if the last reload found no rows and non-empty fallback rows are shown */
+  public boolean isShowingFallback() { return showingFallback; }
+
+  /** Rows to show instead when a reload finds no rows; null for none. */
+  public void setFallback(FallbackQuery<T> fallback) { this.fallback = fallback; }
+
+  /** Runs on the FX thread after every successful reload or page. */
+  public void setOnLoaded(Runnable onLoaded) { this.onLoaded = onLoaded; }
+
+  /** Runs on the FX thread when a load fails. */
+  public void setOnFailed(Consumer<Throwable> onFailed) { this.onFailed = onFailed; }
+
+  /**
+   * Drops the loaded rows and loads the count and the first page again.
+   */
+  public void reload() {
+    loading = true;
+    exhausted = false;
+    final FallbackQuery<T> fallback = this.fallback;
+
+    Task<FirstPage<T>> task = new Task<>() {
+      @Override
+      protected FirstPage<T> call() throws Exception {
+        int count = counter.count();
+        List<T> rows = pages.fetch(0, pageSize);
+        if (rows.isEmpty() && fallback != null) {
+          List<T> substitutes = fallback.fetch();
+          if (!substitutes.isEmpty())
+            return new FirstPage<>(count, substitutes, true);
+        }
+        return new FirstPage<>(count, rows, false);
+      }
+    };
+
+    task.setOnSucceeded(e -> {
+      FirstPage<T> first = task.getValue();
+      showingFallback = first.fallback;
+      totalCount = first.fallback ? first.rows.size() : first.count;
+      items.setAll(first.rows);
+      /* fallback rows are complete; their last key must not seed the page query */
+      finishPage(first.fallback || first.rows.size() < pageSize);
+    });
+    task.setOnFailed(e -> {
+      loading = false;
+      onFailed.accept(task.getException());
+    });
+
+    Session.getAsyncService().submitLatest(owner, key, task);
+  }
+
+  /**
+   * Fetches the next page unless one is already loading or the end was reached.
+   */
+  public void loadMore() {
+    if (loading || exhausted || items.isEmpty())
+      return;
+    loading = true;
+
+    final int afterKey = keyOf.applyAsInt(items.get(items.size() - 1));
+    Task<List<T>> task = new Task<>() {
+      @Override
+      protected List<T> call() throws Exception {
+        return pages.fetch(afterKey, pageSize);
+      }
+    };
+
+    task.setOnSucceeded(e -> {
+      List<T> rows = task.getValue();
+      items.addAll(rows);
+      finishPage(rows.size() < pageSize);
+    });
+    task.setOnFailed(e -> {
+      loading = false;
+      onFailed.accept(task.getException());
+    });
+
+    Session.getAsyncService().submitLatest(owner, key, task);
+  }
+
+  private void finishPage(boolean lastPage) {
+    loading = false;
+    exhausted = lastPage;
+    onLoaded.run();
+  }
+
+  private static final class FirstPage<T> {
+    private final int count;
+    private final List<T> rows;
+    private final boolean fallback;
+
+    FirstPage(int count, List<T> rows, boolean fallback) {
+      this.count = count;
+      this.rows = rows;
+      this.fallback = fallback;
+    }
+  }
+}
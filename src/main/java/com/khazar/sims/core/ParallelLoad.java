@@ -0,0 +1,153 @@
+package com.khazar.sims.core;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.khazar.sims.database.QueryContext;
+
+/**
+ * Fans out independent queries for one screen and joins them with {@link StructuredTaskScope}.
+ *
+ * Call it from a background task (Task.call()); the task then hands the combined result to the
+ * FX thread as usual:
+ *
+ * <pre>
+ * return ParallelLoad.run(fork -> {
+ *   Supplier&lt;List&lt;Faculty&gt;&gt; faculties = fork.query(facultiesTable::getAll);
+ *   Supplier&lt;List&lt;Department&gt;&gt; departments = fork.query(departmentsTable::getAll);
+ *   return () -> new ScreenData(faculties.get(), departments.get());
+ * });
+ * </pre>
+ *
+ * Every query runs on its own virtual thread and takes an {@link AsyncService} permit, like
+ * any other background work; the calling task lends its own permit out while it joins.
+ *
+ * The forks share one {@link QueryContext}, which follows the caller's. The first failure
+ * cancels that context, so the other queries stop with Statement.cancel() and the failure is
+ * rethrown. The scope never interrupts the forks: an interrupt during socket I/O would close
+ * their pooled connections. Cancelling the calling task cancels the forks the same way.
+ *
+ * Uses the StructuredTaskScope preview API (JEP 505), hence --enable-preview in the pom.
+ */
+public final class ParallelLoad {
+
+  private ParallelLoad() {}
+
+  /**
+   * A blocking query forked into the scope.
+   */
+  @FunctionalInterface
+  public interface Query<T> {
+    T call() throws Exception;
+  }
+
+  /**
+   * Forks the queries of one screen and returns how to combine their results.
+   * The combiner runs after every query succeeded, so its get() calls never block.
+   */
+  @FunctionalInterface
+  public interface Plan<R> {
+    Supplier<R> fork(Fork fork);
+  }
+
+  /**
+   * Runs the plan and returns the combined result.
+   *
+   * @throws SQLException the first query failure (other failures are wrapped)
+   * @throws InterruptedException if the calling task was cancelled
+   */
+  public static <R> R run(Plan<R> plan) throws SQLException, InterruptedException {
+    QueryContext context = new QueryContext();
+    QueryContext caller = QueryContext.current();
+    if (caller != null) caller.onCancel(context::cancel);
+
+    try (StructuredTaskScope<Object, Void> scope = StructuredTaskScope.open(new CancelOnFailure(context))) {
+      Supplier<R> combiner = plan.fork(new Fork(scope, context, Session.getAsyncService()));
+      AsyncService.Loan loan = AsyncService.lendPermit();
+      try {
+        scope.join();
+      }
+      catch (InterruptedException e) {
+        /* stop the statements before close() has to interrupt their threads */
+        context.cancel();
+        throw e;
+      }
+      finally {
+        loan.repay();
+      }
+      return combiner.get();
+    }
+    catch (StructuredTaskScope.FailedException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException sql) throw sql;
+      if (cause instanceof RuntimeException runtime) throw runtime;
+      if (cause instanceof Error error) throw error;
+      throw new SQLException(cause);
+    }
+  }
+
+  /**
+   * Handle passed to a {@link Plan} for forking queries.
+   */
+  public static final class Fork {
+    private final StructuredTaskScope<Object, Void> scope;
+    private final QueryContext context;
+    private final AsyncService service;
+
+    private Fork(StructuredTaskScope<Object, Void> scope, QueryContext context, AsyncService service) {
+      this.scope = scope;
+      this.context = context;
+      this.service = service;
+    }
+
+    /**
+     * Starts a query. The returned supplier may only be read from the combiner.
+     */
+    public <T> Supplier<T> query(Query<T> query) {
+      Callable<T> task = () -> {
+        service.acquirePermit();
+        try {
+          return context.callWith(query::call);
+        }
+        finally {
+          service.releasePermit();
+        }
+      };
+      return scope.fork(task);
+    }
+  }
+
+  /* ---------------------- JOINER ---------------------- */
+
+  /**
+   * Waits for every fork; the first failure cancels the shared context instead of the scope,
+   * so the remaining forks end through their cancelled statements rather than interrupts.
+   */
+  private static final class CancelOnFailure implements StructuredTaskScope.Joiner<Object, Void> {
+    private final QueryContext context;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    CancelOnFailure(QueryContext context) {
+      this.context = context;
+    }
+
+    @Override
+    public boolean onComplete(Subtask<?> subtask) {
+      if (subtask.state() == Subtask.State.FAILED && failure.compareAndSet(null, subtask.exception()))
+        context.cancel();
+      return false;
+    }
+
+    @Override
+    public Void result() throws Throwable {
+      Throwable first = failure.get();
+      if (first != null)
+        throw first;
+      return null;
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.khazar.sims.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * In-memory word-prefix index for the filter boxes of list screens.
+ *
+ * The search keys of every row (name, code, email, ...) are lower-cased and split into words
+ * once, when the rows are set. A query matches a row when every word of the query is the
+ * start of some word of the row, so "jo sm" finds "John Smith" and "smith.j@khazar.org".
+ *
+ * Lookups binary-search a sorted array of all row words, so a query costs O(log n + matches)
+ * instead of a scan over every row. While the user keeps typing (the new query extends the
+ * previous one) the previous matches are narrowed in place instead of searching again.
+ * Results are collected into buffers reused across calls, so typing allocates nothing per row.
+ *
+ * Not thread-safe; meant to be used from the JavaFX application thread.
+ */
+public class SearchIndex<T> {
+  private final Function<T, String[]> keys;
+
+  private List<T> rows = Collections.emptyList();
+  /* Words of each row, and every (word, row) pair sorted by word */
+  private String[][] rowWords = new String[0][];
+  private String[] words = new String[0];
+  private int[] wordRows = new int[0];
+
+  /* Last query and its matching row indices, in row order */
+  private String lastQuery = null;
+  private int[] matches = new int[0];
+  private int matchCount = 0;
+
+  /* Dedup stamps for the index path; a row is seen in this search when seen[row] == stamp */
+  private int[] seen = new int[0];
+  private int stamp = 0;
+
+  private final ArrayList<T> results = new ArrayList<>();
+
+  /**
+   * @param keys the searchable texts of a row; null entries are ignored
+   */
+  public SearchIndex(Function<T, String[]> keys) {
+    this.keys = keys;
+  }
+
+  /**
+   * Indexes a new set of rows. Call it whenever the screen's data is (re)loaded.
+   */
+  public void setItems(List<T> items) {
+    rows = items;
+    int n = items.size();
+    rowWords = new String[n][];
+    List<String> allWords = new ArrayList<>();
+    List<Integer> allRows = new ArrayList<>();
+
+    for (int row = 0; row < n; row++) {
+      List<String> tokens = new ArrayList<>();
+      for (String key : keys.apply(items.get(row))) {
+        if (key != null) tokenize(key.toLowerCase(Locale.ROOT), tokens);
+      }
+      rowWords[row] = tokens.toArray(new String[0]);
+      for (String token : rowWords[row]) {
+        allWords.add(token);
+        allRows.add(row);
+      }
+    }
+
+    /* Sort (word, row) pairs by word, then row */
+    Integer[] order = new Integer[allWords.size()];
+    for (int i = 0; i < order.length; i++) order[i] = i;
+    Arrays.sort(order, (a, b) -> {
+      int cmp = allWords.get(a).compareTo(allWords.get(b));
+      return cmp != 0 ? cmp : Integer.compare(allRows.get(a), allRows.get(b));
+    });
+    words = new String[order.length];
+    wordRows = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      words[i] = allWords.get(order[i]);
+      wordRows[i] = allRows.get(order[i]);
+    }
+
+    matches = new int[n];
+    seen = new int[n];
+    stamp = 0;
+    lastQuery = null;
+    matchCount = 0;
+    results.ensureCapacity(n);
+  }
+
+  /**
+   * Returns the rows matching the query, in their original order; a blank query matches every row.
+   * The returned list is reused by the next call, so copy it (e.g. ObservableList.setAll)
+   * before searching again.
+   */
+  public List<T> search(String query) {
+    String normalized = query == null ? "" : query.toLowerCase(Locale.ROOT).strip();
+    String[] queryWords = words(normalized);
+
+    if (queryWords.length == 0) {
+      matchCount = rows.size();
+      for (int row = 0; row < matchCount; row++) matches[row] = row;
+    }
+    else if (lastQuery != null && !lastQuery.isEmpty() && normalized.startsWith(lastQuery)) {
+      /* Every row matching the longer query matched the shorter one */
+      narrow(queryWords);
+    }
+    else {
+      lookup(queryWords);
+    }
+    lastQuery = normalized;
+
+    results.clear();
+    for (int i = 0; i < matchCount; i++) results.add(rows.get(matches[i]));
+    return results;
+  }
+
+  /* Keeps the previous matches that also match the new words */
+  private void narrow(String[] queryWords) {
+    int kept = 0;
+    for (int i = 0; i < matchCount; i++) {
+      int row = matches[i];
+      if (matchesAll(row, queryWords)) matches[kept++] = row;
+    }
+    matchCount = kept;
+  }
+
+  /* Collects the rows of the longest (most selective) word from the index, then checks the rest */
+  private void lookup(String[] queryWords) {
+    String anchor = queryWords[0];
+    for (String word : queryWords) {
+      if (word.length() > anchor.length()) anchor = word;
+    }
+
+    if (++stamp == 0) {
+      Arrays.fill(seen, 0);
+      stamp = 1;
+    }
+    matchCount = 0;
+    for (int i = lowerBound(anchor); i < words.length && words[i].startsWith(anchor); i++) {
+      int row = wordRows[i];
+      if (seen[row] == stamp) continue;
+      seen[row] = stamp;
+      if (matchesAll(row, queryWords)) matches[matchCount++] = row;
+    }
+    Arrays.sort(matches, 0, matchCount);
+  }
+
+  private boolean matchesAll(int row, String[] queryWords) {
+    for (String word : queryWords) {
+      if (!hasWordStartingWith(rowWords[row], word)) return false;
+    }
+    return true;
+  }
+
+  private static boolean hasWordStartingWith(String[] tokens, String prefix) {
+    for (String token : tokens) {
+      if (token.startsWith(prefix)) return true;
+    }
+    return false;
+  }
+
+  /* First index whose word is >= key */
+  private int lowerBound(String key) {
+    int low = 0;
+    int high = words.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (words[mid].compareTo(key) < 0) low = mid + 1;
+      else high = mid;
+    }
+    return low;
+  }
+
+  private static String[] words(String normalized) {
+    if (normalized.isEmpty()) return new String[0];
+    List<String> tokens = new ArrayList<>(4);
+    tokenize(normalized, tokens);
+    return tokens.toArray(new String[0]);
+  }
+
+  /* Splits lower-cased text on everything that is not a letter or digit */
+  private static void tokenize(String text, List<String> out) {
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      }
+      else if (!wordChar && start >= 0) {
+        out.add(text.substring(start, i));
+        start = -1;
+      }
+    }
+  }
+}
@@ -3,9 +3,16 @@ package com.khazar.sims.core;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.khazar.sims.Main;
+import com.khazar.sims.database.AsyncDao;
+import com.khazar.sims.database.ConnectionPool;
 import com.khazar.sims.database.Database;
+import com.khazar.sims.database.WriteBehindQueue;
 import com.khazar.sims.database.data.User;
 import com.khazar.sims.database.table.AttendanceTable;
 import com.khazar.sims.database.table.CourseOfferingTable;
@@ -30,16 +37,46 @@ import javafx.stage.Stage;
 
 /**
  * Session class manages the application's global state.
- * It handles database connection, active user, and the root controller.
+ * It handles the database connection pool, active user, and the root controller.
  */
 public class Session {
+  /* How long shutdown waits for a running write-behind flush before draining the rest */
+  private static final long WRITE_BEHIND_DRAIN_TIMEOUT_MS = 5_000;
+  /* Rebuild period of the email filter; must stay below UserTable.EMAIL_FILTER_MAX_AGE_MS */
+  private static final long EMAIL_FILTER_REFRESH_MS = 5 * 60_000;
+  /* Reload period of the code indexes, which drops codes deleted or renamed by other clients */
+  private static final long CODE_INDEX_REFRESH_MS = 10 * 60_000;
+
+  /* Periodic refreshes of the in-memory indexes */
+  private static final ScheduledExecutorService MAINTENANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "sims-maintenance");
+    thread.setDaemon(true);
+    return thread;
+  });
+
   private static User activeUser; /* the current logged-in user. */
   private static RootController rootController;
-  private static Connection connection;
+  private static ConnectionPool connectionPool;
+  private static AsyncService asyncService;
+  private static AsyncDao asyncDao;
+  private static WriteBehindQueue<Integer, Timestamp> lastLoginWrites;
 
   /* ---------- Getters & Setters ---------- */
   public static User getActiveUser() { return activeUser; }
-  public static Connection getDatabaseConnection() throws SQLException { return connection; }
+  public static ConnectionPool getConnectionPool() { return connectionPool; }
+  public static AsyncService getAsyncService() { return asyncService; }
+  public static AsyncDao getAsyncDao() { return asyncDao; }
+  public static WriteBehindQueue<Integer, Timestamp> getLastLoginWrites() { return lastLoginWrites; }
+
+  /**
+   * Borrows a connection from the pool. Callers must close it (try-with-resources)
+   * to hand it back; the pooled connection itself stays open.
+   */
+  public static Connection getDatabaseConnection() throws SQLException {
+    if (connectionPool == null)
+      throw new SQLException("Database is not initialized.");
+    return connectionPool.borrow();
+  }
 
   /* Database tables as objects */
   static private UserTable userTable;
@@ -69,6 +106,11 @@ public class Session {
   static public DepartmentTable getDepartmentTable() { return departmentsTable; } 
   static public CourseOfferingTable getCourseOfferingTable() { return courseOfferingTable; } 
 
+  /* Typo-tolerant search over user names and emails, kept current through the users table */
+  static private FuzzyIndex<User> userIndex;
+
+  static public FuzzyIndex<User> getUserIndex() { return userIndex; }
+
   /* ---------- Initialization ---------- */
   public static void start(Stage primaryStage) throws IOException, SQLException {
     userTable = new UserTable();
@@ -84,7 +126,23 @@ public class Session {
     departmentsTable = new DepartmentTable();
     courseOfferingTable = new CourseOfferingTable();
 
-    connection = Database.init();  /* connect to database */
+    connectionPool = Database.init();  /* connect to database */
+    /* background work is bounded by the number of pooled connections */
+    int dbConcurrency = connectionPool != null ? connectionPool.getMaxSize() : 1;
+    asyncService = new AsyncService(dbConcurrency);
+    asyncDao = new AsyncDao(asyncService);
+    /* last_login may lag a few seconds; logins must not wait for it */
+    lastLoginWrites = new WriteBehindQueue<>("last_login", userTable::updateLastLogins);
+
+    userIndex = new FuzzyIndex<>(User::getId, user -> new String[] {
+      user.getFirstName(), user.getLastName(), user.getEmail()
+    });
+    userTable.addListener(userIndex);
+    if (connectionPool != null) {
+      buildUserIndex();
+      buildEmailFilter();
+      loadCodeIndexes();
+    }
 
     /* Load root (Window) */
     FXMLLoader loader = new FXMLLoader(Main.class.getResource("/ui/root/root.fxml"));
@@ -99,6 +157,78 @@ public class Session {
     primaryStage.show();
   }
 
+  /**
+   * Fills the user search index with a streaming scan of the users table, in the background.
+   */
+  private static void buildUserIndex() {
+    asyncDao.run(() -> {
+      userTable.forEach(userIndex::put);
+      userIndex.markReady();
+    }).exceptionally(e -> {
+      System.err.println("User search index build failed: " + e);
+      return null;
+    });
+  }
+
+  /**
+   * Builds the users' email Bloom filter in the background and rebuilds it every
+   * {@link #EMAIL_FILTER_REFRESH_MS}. Until a recent build is complete, email lookups simply
+   * go to the database.
+   */
+  private static void buildEmailFilter() {
+    MAINTENANCE.scheduleWithFixedDelay(() -> {
+      try {
+        AsyncDao.await(asyncDao.run(userTable::rebuildEmailFilter));
+      }
+      catch (SQLException | RuntimeException e) {
+        System.err.println("Email filter build failed: " + e);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, 0, EMAIL_FILTER_REFRESH_MS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Loads course, department and faculty codes into memory in the background, and reloads them
+   * every {@link #CODE_INDEX_REFRESH_MS}, so code lookups and autocomplete rarely wait on the
+   * database.
+   */
+  private static void loadCodeIndexes() {
+    MAINTENANCE.scheduleWithFixedDelay(() -> {
+      try {
+        AsyncDao.await(asyncDao.run(() -> {
+          courseTable.loadCodes();
+          departmentsTable.loadCodes();
+          facultiesTable.loadCodes();
+        }));
+      }
+      catch (SQLException | RuntimeException e) {
+        System.err.println("Code index load failed: " + e);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, 0, CODE_INDEX_REFRESH_MS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Releases application-wide resources. Called once when the JavaFX application stops.
+   */
+  public static void shutdown() {
+    /* Drain queued writes while the pool is still open */
+    if (lastLoginWrites != null) {
+      lastLoginWrites.shutdown(WRITE_BEHIND_DRAIN_TIMEOUT_MS);
+    }
+    MAINTENANCE.shutdownNow();
+    if (asyncService != null) {
+      asyncService.shutdown();
+    }
+    if (connectionPool != null) {
+      connectionPool.close();
+    }
+  }
+
   public static void logout() {
     activeUser = null;
     UIManager.setView(rootController.getContentArea(), "/ui/login/login.fxml", SceneTransition.Type.FADE, 150.0);
@@ -0,0 +1,185 @@
+package com.khazar.sims.database;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.khazar.sims.core.AsyncService;
+import com.khazar.sims.database.table.BaseTable;
+
+/**
+ * Asynchronous facade over the blocking DAO layer.
+ *
+ * Every call runs on the {@link AsyncService} virtual threads and holds one of its permits
+ * while it runs, so calls and controller tasks together never run more queries than there
+ * are pooled connections. Each call returns a {@link CompletableFuture}; independent queries
+ * can be started together and combined:
+ *
+ * <pre>
+ * var semesters = asyncDao.table(Session.getSemesterTable()).getAll();
+ * var counts = asyncDao.supply(() -> Session.getEnrollmentTable().getEnrollmentCountsForTeacher(id));
+ * semesters.thenCombine(counts, ...);
+ * </pre>
+ *
+ * Each call runs in its own {@link QueryContext}, so a query can be stopped on its own:
+ * cancelling the future returned by {@link #supply} or {@link #run} kills its statement with
+ * Statement.cancel() (or skips it if it has not started yet). The call's context also follows
+ * the caller's, so cancelling the controller task that started the queries (e.g. the
+ * teacher's course list in CoursesController) cancels all of them. Futures derived with
+ * thenApply/thenCombine are separate futures; cancelling those does not reach the query.
+ */
+public class AsyncDao {
+  private final AsyncService service;
+
+  /**
+   * A blocking database call.
+   */
+  @FunctionalInterface
+  public interface SqlSupplier<T> {
+    T get() throws SQLException;
+  }
+
+  /**
+   * A blocking database call without a result.
+   */
+  @FunctionalInterface
+  public interface SqlRunnable {
+    void run() throws SQLException;
+  }
+
+  /**
+   * @param service provides the threads and the permits the calls run under
+   */
+  public AsyncDao(AsyncService service) {
+    this.service = service;
+  }
+
+  /**
+   * Runs any DAO call on the database executor.
+   * An SQLException completes the future exceptionally (wrapped in a CompletionException).
+   * Cancelling the returned future cancels the call's statement.
+   */
+  public <T> CompletableFuture<T> supply(SqlSupplier<T> call) {
+    QueryContext context = new QueryContext();
+    QueryContext caller = QueryContext.current();
+    if (caller != null) caller.onCancel(context::cancel);
+
+    CompletableFuture<T> future = new CompletableFuture<>();
+    /* Statement.cancel() opens a side connection, so never on the cancelling (maybe FX) thread */
+    future.whenComplete((result, error) -> {
+      if (future.isCancelled()) cancelInBackground(context);
+    });
+    service.execute(() -> {
+      if (future.isDone())
+        return;
+      context.runWith(() -> complete(future, call));
+    });
+    return future;
+  }
+
+  public CompletableFuture<Void> run(SqlRunnable call) {
+    return supply(() -> {
+      call.run();
+      return null;
+    });
+  }
+
+  private <T> void complete(CompletableFuture<T> future, SqlSupplier<T> call) {
+    try {
+      service.acquirePermit();
+    }
+    catch (InterruptedException e) {
+      future.cancel(false);
+      return;
+    }
+    try {
+      /* cancelled while waiting for a permit */
+      if (future.isDone())
+        return;
+      future.complete(call.get());
+    }
+    catch (Throwable t) {
+      future.completeExceptionally(t);
+    }
+    finally {
+      service.releasePermit();
+    }
+  }
+
+  private void cancelInBackground(QueryContext context) {
+    try {
+      service.execute(context::cancel);
+    }
+    catch (RejectedExecutionException e) {
+      /* shutting down: nothing new starts, and running calls end with their statements */
+    }
+  }
+
+  /**
+   * @return the asynchronous view of a table's standard DAO operations
+   */
+  public <T> Table<T> table(BaseTable<T> table) {
+    return new Table<>(this, table);
+  }
+
+  /**
+   * Waits for a future from a background thread (e.g. inside Task.call()) and rethrows
+   * a database failure as the original SQLException. Interrupting the waiting thread
+   * cancels the future; for a future from {@link #supply} or {@link #run} that also cancels
+   * its statement. A waiting AsyncService task lends out its permit meanwhile.
+   */
+  public static <T> T await(CompletableFuture<T> future) throws SQLException, InterruptedException {
+    AsyncService.Loan loan = AsyncService.lendPermit();
+    try {
+      return future.get();
+    }
+    catch (InterruptedException e) {
+      future.cancel(true);
+      throw e;
+    }
+    catch (ExecutionException | CompletionException e) {
+      Throwable cause = e.getCause();
+      while (cause instanceof CompletionException && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof SQLException sql) throw sql;
+      if (cause instanceof RuntimeException runtime) throw runtime;
+      if (cause instanceof Error error) throw error;
+      throw new SQLException(cause);
+    }
+    catch (CancellationException e) {
+      throw new InterruptedException("Query was cancelled.");
+    }
+    finally {
+      loan.repay();
+    }
+  }
+
+  /* ---------------------- TABLES ---------------------- */
+
+  /**
+   * {@link BaseTable} operations returning futures.
+   */
+  public static class Table<T> {
+    private final AsyncDao dao;
+    private final BaseTable<T> table;
+
+    Table(AsyncDao dao, BaseTable<T> table) {
+      this.dao = dao;
+      this.table = table;
+    }
+
+    public CompletableFuture<T> getById(int id) { return dao.supply(() -> table.getById(id)); }
+    public CompletableFuture<Map<Integer, T>> getByIds(Collection<Integer> ids) { return dao.supply(() -> table.getByIds(ids)); }
+    public CompletableFuture<List<T>> getAll() { return dao.supply(table::getAll); }
+    public CompletableFuture<T> add(T row) { return dao.supply(() -> table.add(row)); }
+    public CompletableFuture<Void> update(T row) { return dao.run(() -> table.update(row)); }
+    public CompletableFuture<Void> delete(int id) { return dao.run(() -> table.delete(id)); }
+  }
+}
@@ -0,0 +1,89 @@
+package com.khazar.sims.database;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings: answers "definitely absent" or "possibly present".
+ *
+ * Sized for an expected number of keys and a target false positive rate; positions come from
+ * double hashing of one 64-bit hash. Bits are set with compare-and-set, so adds from several
+ * threads and concurrent lookups need no lock. Keys cannot be removed: a filter that has seen
+ * deleted keys only gets more false positives, never false negatives, until it is rebuilt.
+ */
+public class BloomFilter {
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * @param expectedKeys      number of keys the filter is sized for
+   * @param falsePositiveRate target probability that an absent key is reported present
+   */
+  public BloomFilter(long expectedKeys, double falsePositiveRate) {
+    if (expectedKeys < 1)
+      throw new IllegalArgumentException("Expected key count must be at least 1.");
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1.");
+
+    /* m = -n ln p / (ln 2)^2, k = m/n ln 2 */
+    long m = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    long words = Math.max(1, (m + 63) / 64);
+    if (words > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Bloom filter too large.");
+    this.bits = new AtomicLongArray((int) words);
+    this.bitCount = words * 64;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+  }
+
+  public void add(String key) {
+    long hash = hash(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(word);
+        if ((current & mask) != 0) break;
+      } while (!bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /**
+   * @return false if the key was definitely never added
+   */
+  public boolean mightContain(String key) {
+    long hash = hash(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+        return false;
+    }
+    return true;
+  }
+
+  private long index(int combined) {
+    return (combined & 0xFFFFFFFFL) % bitCount;
+  }
+
+  /* FNV-1a over the chars, finished with the SplitMix64 mixer */
+  private static long hash(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      h ^= key.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+    h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+    return h ^ (h >>> 31);
+  }
+
+  @Override
+  public String toString() {
+    return "BloomFilter[bits=" + bitCount + ", hashes=" + hashCount + "]";
+  }
+}
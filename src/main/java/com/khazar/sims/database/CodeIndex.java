@@ -0,0 +1,239 @@
+package com.khazar.sims.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import com.khazar.sims.database.table.TableListener;
+
+/**
+ * In-memory index of a table's short codes (course, department and faculty codes), for exact
+ * lookups and autocomplete without a database round trip.
+ *
+ * Codes are kept upper-cased in one array sorted by (code, scope); {@link #get} is a binary
+ * search and {@link #complete} walks the run of codes sharing the prefix. The scope is for
+ * codes that are only unique within a parent row, e.g. department codes per faculty; indexes
+ * of globally unique codes use scope 0. The index is filled by {@link #load} and then kept
+ * current through {@link TableListener} callbacks (or direct {@link #put}/{@link #remove}
+ * calls), so inserting a code shifts at most a few thousand references.
+ *
+ * The index only knows the rows written through this client since the last load. A miss is
+ * therefore not proof that the code is free: tables confirm misses with a query and
+ * {@link #put} what they find. Until the first load, {@link #isLoaded()} is false.
+ *
+ * Thread-safe.
+ */
+public class CodeIndex<T> implements TableListener<T> {
+  private final ToIntFunction<T> idOf;
+  private final ToIntFunction<T> scopeOf;
+  private final Function<T, String> codeOf;
+
+  /* Sorted by (code, scope); rows[i] has codes[i] and scopes[i] */
+  private String[] codes = new String[0];
+  private int[] scopes = new int[0];
+  private Object[] rows = new Object[0];
+  private int size = 0;
+  /* Current position key of each indexed id, to find the old entry on update and delete */
+  private final Map<Integer, Entry> entryOfId = new HashMap<>();
+
+  /* Changes made while a load is reading its rows, replayed over them; null entries are removals */
+  private Map<Integer, T> changesDuringLoad = null;
+  private final Object loadLock = new Object();
+
+  private volatile boolean loaded = false;
+
+  private record Entry(String code, int scope) {}
+
+  /**
+   * Index of codes unique across the whole table.
+   */
+  public CodeIndex(ToIntFunction<T> idOf, Function<T, String> codeOf) {
+    this(idOf, row -> 0, codeOf);
+  }
+
+  /**
+   * Index of codes unique within a scope.
+   *
+   * @param scopeOf the parent key a code is unique in, e.g. the department's faculty id
+   */
+  public CodeIndex(ToIntFunction<T> idOf, ToIntFunction<T> scopeOf, Function<T, String> codeOf) {
+    this.idOf = idOf;
+    this.scopeOf = scopeOf;
+    this.codeOf = codeOf;
+  }
+
+  public boolean isLoaded() { return loaded; }
+
+  /**
+   * Replaces the contents with the rows from {@code source} and marks the index loaded.
+   *
+   * The source runs without holding the index lock. Puts and removes made meanwhile are
+   * replayed over its result, so a row written during the load is neither lost nor revived.
+   */
+  public void load(AsyncDao.SqlSupplier<? extends Collection<T>> source) throws SQLException {
+    synchronized (loadLock) {
+      synchronized (this) {
+        changesDuringLoad = new LinkedHashMap<>();
+      }
+      Collection<T> all;
+      try {
+        all = source.get();
+      }
+      catch (SQLException | RuntimeException e) {
+        synchronized (this) {
+          changesDuringLoad = null;
+        }
+        throw e;
+      }
+
+      synchronized (this) {
+        Map<Integer, T> changes = changesDuringLoad;
+        changesDuringLoad = null;
+
+        size = 0;
+        codes = new String[Math.max(16, all.size())];
+        scopes = new int[codes.length];
+        rows = new Object[codes.length];
+        entryOfId.clear();
+        for (T row : all) {
+          if (!changes.containsKey(idOf.applyAsInt(row))) insert(row);
+        }
+        for (Map.Entry<Integer, T> change : changes.entrySet()) {
+          if (change.getValue() != null) insert(change.getValue());
+        }
+        loaded = true;
+      }
+    }
+  }
+
+  /**
+   * Adds the row, or moves it to its new code.
+   */
+  public synchronized void put(T row) {
+    int id = idOf.applyAsInt(row);
+    delete(id);
+    insert(row);
+    if (changesDuringLoad != null) changesDuringLoad.put(id, row);
+  }
+
+  public synchronized void remove(int id) {
+    delete(id);
+    if (changesDuringLoad != null) changesDuringLoad.put(id, null);
+  }
+
+  @Override public void onAdded(T row) { put(row); }
+  @Override public void onUpdated(T row) { put(row); }
+  @Override public void onDeleted(int id) { remove(id); }
+
+  /**
+   * @return the row with this code (case-insensitive) in an index of globally unique codes,
+   *         or null if the index has none
+   */
+  public T get(String code) {
+    return get(0, code);
+  }
+
+  /**
+   * @return the row with this code (case-insensitive) within the scope, or null if the index
+   *         has none
+   */
+  public synchronized T get(int scope, String code) {
+    if (code == null)
+      return null;
+    String key = normalize(code);
+    int i = lowerBound(key, scope);
+    return i < size && codes[i].equals(key) && scopes[i] == scope ? rowAt(i) : null;
+  }
+
+  /**
+   * @return up to {@code limit} rows whose code starts with the prefix, in code order
+   */
+  public synchronized List<T> complete(String prefix, int limit) {
+    String key = prefix == null ? "" : normalize(prefix);
+    List<T> result = new ArrayList<>(Math.min(limit, 16));
+    for (int i = lowerBound(key, Integer.MIN_VALUE); i < size && result.size() < limit && codes[i].startsWith(key); i++) {
+      result.add(rowAt(i));
+    }
+    return result;
+  }
+
+  /**
+   * Like {@link #complete(String, int)}, limited to one scope.
+   */
+  public synchronized List<T> complete(int scope, String prefix, int limit) {
+    String key = prefix == null ? "" : normalize(prefix);
+    List<T> result = new ArrayList<>(Math.min(limit, 16));
+    for (int i = lowerBound(key, Integer.MIN_VALUE); i < size && result.size() < limit && codes[i].startsWith(key); i++) {
+      if (scopes[i] == scope) result.add(rowAt(i));
+    }
+    return result;
+  }
+
+  private void insert(T row) {
+    String code = codeOf.apply(row);
+    if (code == null)
+      return;
+    String key = normalize(code);
+    int scope = scopeOf.applyAsInt(row);
+    if (size == codes.length) {
+      codes = Arrays.copyOf(codes, size * 2 + 16);
+      scopes = Arrays.copyOf(scopes, codes.length);
+      rows = Arrays.copyOf(rows, codes.length);
+    }
+    int i = lowerBound(key, scope);
+    System.arraycopy(codes, i, codes, i + 1, size - i);
+    System.arraycopy(scopes, i, scopes, i + 1, size - i);
+    System.arraycopy(rows, i, rows, i + 1, size - i);
+    codes[i] = key;
+    scopes[i] = scope;
+    rows[i] = row;
+    size++;
+    entryOfId.put(idOf.applyAsInt(row), new Entry(key, scope));
+  }
+
+  private void delete(int id) {
+    Entry entry = entryOfId.remove(id);
+    if (entry == null)
+      return;
+    for (int i = lowerBound(entry.code(), entry.scope());
+         i < size && codes[i].equals(entry.code()) && scopes[i] == entry.scope(); i++) {
+      if (idOf.applyAsInt(rowAt(i)) == id) {
+        System.arraycopy(codes, i + 1, codes, i, size - i - 1);
+        System.arraycopy(scopes, i + 1, scopes, i, size - i - 1);
+        System.arraycopy(rows, i + 1, rows, i, size - i - 1);
+        size--;
+        codes[size] = null;
+        rows[size] = null;
+        return;
+      }
+    }
+  }
+
+  /* First position whose (code, scope) is >= (key, scope) */
+  private int lowerBound(String key, int scope) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int cmp = codes[mid].compareTo(key);
+      if (cmp < 0 || (cmp == 0 && scopes[mid] < scope)) low = mid + 1;
+      else high = mid;
+    }
+    return low;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T rowAt(int i) { return (T) rows[i]; }
+
+  private static String normalize(String code) {
+    return code.strip().toUpperCase(Locale.ROOT);
+  }
+}
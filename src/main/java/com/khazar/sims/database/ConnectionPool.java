@@ -0,0 +1,322 @@
+package com.khazar.sims.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool.
+ *
+ * Callers borrow a connection with {@link #borrow()} and give it back by closing it,
+ * so the usual try-with-resources block is all a DAO method needs:
+ *
+ * <pre>
+ *   try (Connection conn = pool.borrow();
+ *        PreparedStatement ps = conn.prepareStatement(sql)) { ... }
+ * </pre>
+ *
+ * Idle connections are validated before reuse (MySQL silently drops sockets after
+ * {@code wait_timeout}), connections older than the configured max lifetime are
+ * retired, and borrow/return timings are collected for {@link #getStats()}.
+ * Each connection keeps its own {@link StatementCache}; the combined hit/miss
+ * counters are available from {@link #getStatementCacheStats()}.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+  /**
+   * Opens a new physical connection. Usually {@link Database#connect()}.
+   */
+  @FunctionalInterface
+  public interface ConnectionFactory {
+    Connection create() throws SQLException;
+  }
+
+  private final ConnectionFactory factory;
+  private final int maxSize;
+  private final long borrowTimeoutMillis;
+  private final long validationIntervalMillis;
+  private final long maxLifetimeMillis;
+  private final int validationTimeoutSeconds;
+  private final int statementCacheSize;
+
+  /* One permit per connection that may be handed out at the same time */
+  private final Semaphore permits;
+  /* LIFO so the most recently used (and most likely still alive) connection is reused first. Guarded by itself. */
+  private final Deque<PooledConnection> idle = new ArrayDeque<>();
+  private final AtomicInteger openCount = new AtomicInteger();
+  private volatile boolean closed = false;
+
+  /* ---------- Statistics ---------- */
+  private final LongAdder borrowCount = new LongAdder();
+  private final LongAdder borrowWaitNanos = new LongAdder();
+  private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+  private final LongAdder returnCount = new LongAdder();
+  private final LongAdder holdNanos = new LongAdder();
+  private final LongAdder timeoutCount = new LongAdder();
+  private final LongAdder createdCount = new LongAdder();
+  private final LongAdder retiredCount = new LongAdder();
+  private final LongAdder validationFailures = new LongAdder();
+  private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+  /**
+   * @param factory                  opens physical connections
+   * @param maxSize                  maximum number of open connections
+   * @param borrowTimeoutMillis      how long {@link #borrow()} waits for a free connection
+   * @param validationIntervalMillis idle time after which a connection is pinged before reuse
+   * @param maxLifetimeMillis        age after which a connection is closed instead of reused
+   * @param statementCacheSize       prepared statements cached per connection (0 disables the cache)
+   */
+  public ConnectionPool(ConnectionFactory factory, int maxSize, long borrowTimeoutMillis,
+                        long validationIntervalMillis, long maxLifetimeMillis, int statementCacheSize) {
+    if (maxSize < 1)
+      throw new IllegalArgumentException("Pool size must be at least 1.");
+
+    this.factory = factory;
+    this.maxSize = maxSize;
+    this.borrowTimeoutMillis = borrowTimeoutMillis;
+    this.validationIntervalMillis = validationIntervalMillis;
+    this.maxLifetimeMillis = maxLifetimeMillis;
+    this.validationTimeoutSeconds = 2;
+    this.statementCacheSize = statementCacheSize;
+    this.permits = new Semaphore(maxSize, true);
+  }
+
+  public int getMaxSize() { return maxSize; }
+
+  /* ---------------------- BORROW / RETURN ---------------------- */
+
+  /**
+   * Borrows a connection, waiting up to the configured timeout if all are in use.
+   * Closing the returned connection hands it back to the pool.
+   *
+   * @return a connection handle owned by the caller until closed
+   * @throws SQLException if the pool is closed, no connection frees up in time,
+   *                      or a new physical connection cannot be opened
+   */
+  public Connection borrow() throws SQLException {
+    if (closed)
+      throw new SQLException("Connection pool is closed.");
+
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        timeoutCount.increment();
+        throw new SQLException(String.format(
+          "Timed out after %d ms waiting for a database connection (%d of %d in use).",
+          borrowTimeoutMillis, maxSize - permits.availablePermits(), maxSize
+        ));
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection.", e);
+    }
+
+    PooledConnection pooled;
+    try {
+      pooled = acquirePhysical();
+    }
+    catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+
+    long waited = System.nanoTime() - start;
+    borrowCount.increment();
+    borrowWaitNanos.add(waited);
+    maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+    return pooled.lease();
+  }
+
+  /**
+   * Takes an idle connection that is still usable, or opens a new one.
+   * Caller must already hold a permit.
+   */
+  private PooledConnection acquirePhysical() throws SQLException {
+    while (true) {
+      PooledConnection candidate;
+      synchronized (idle) {
+        candidate = idle.pollFirst();
+      }
+      if (candidate == null)
+        break;
+
+      if (candidate.isExpired(maxLifetimeMillis)) {
+        retire(candidate);
+        continue;
+      }
+      if (candidate.idleMillis() >= validationIntervalMillis && !candidate.validate(validationTimeoutSeconds)) {
+        /* Most likely dropped by the server after wait_timeout; reconnect below */
+        validationFailures.increment();
+        retire(candidate);
+        continue;
+      }
+      return candidate;
+    }
+
+    PooledConnection created = new PooledConnection(this, factory.create(), statementCacheSize, statementCounters);
+    openCount.incrementAndGet();
+    createdCount.increment();
+    return created;
+  }
+
+  /**
+   * Called by a connection handle when it is closed.
+   */
+  void release(PooledConnection pooled) {
+    returnCount.increment();
+    holdNanos.add(pooled.heldNanos());
+
+    try {
+      if (closed || pooled.isExpired(maxLifetimeMillis) || !pooled.reset()) {
+        retire(pooled);
+      }
+      else {
+        synchronized (idle) {
+          idle.offerFirst(pooled);
+        }
+      }
+    }
+    finally {
+      permits.release();
+    }
+  }
+
+  private void retire(PooledConnection pooled) {
+    openCount.decrementAndGet();
+    retiredCount.increment();
+    pooled.closePhysical();
+  }
+
+  /* ---------------------- LIFECYCLE ---------------------- */
+
+  /**
+   * Closes all idle connections and refuses further borrows.
+   * Connections still in use are closed as soon as they are returned.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    synchronized (idle) {
+      PooledConnection pooled;
+      while ((pooled = idle.pollFirst()) != null) {
+        retire(pooled);
+      }
+    }
+  }
+
+  public boolean isClosed() { return closed; }
+
+  /* ---------------------- STATISTICS ---------------------- */
+
+  /**
+   * @return a point-in-time snapshot of pool usage and borrow/return timings
+   */
+  public Stats getStats() {
+    int idleNow;
+    synchronized (idle) {
+      idleNow = idle.size();
+    }
+    return new Stats(
+      maxSize,
+      openCount.get(),
+      idleNow,
+      maxSize - permits.availablePermits(),
+      permits.getQueueLength(),
+      borrowCount.sum(),
+      borrowWaitNanos.sum(),
+      maxBorrowWaitNanos.get(),
+      returnCount.sum(),
+      holdNanos.sum(),
+      timeoutCount.sum(),
+      createdCount.sum(),
+      retiredCount.sum(),
+      validationFailures.sum()
+    );
+  }
+
+  /**
+   * @return hit/miss counters of the prepared statement caches of all pooled connections
+   */
+  public StatementCache.Stats getStatementCacheStats() {
+    return statementCounters.snapshot();
+  }
+
+  /**
+   * Immutable snapshot of the pool counters.
+   */
+  public static class Stats {
+    private final int maxSize;
+    private final int openConnections;
+    private final int idleConnections;
+    private final int activeConnections;
+    private final int waitingThreads;
+    private final long borrowCount;
+    private final long totalBorrowWaitNanos;
+    private final long maxBorrowWaitNanos;
+    private final long returnCount;
+    private final long totalHoldNanos;
+    private final long timeoutCount;
+    private final long createdCount;
+    private final long retiredCount;
+    private final long validationFailures;
+
+    Stats(int maxSize, int openConnections, int idleConnections, int activeConnections, int waitingThreads,
+          long borrowCount, long totalBorrowWaitNanos, long maxBorrowWaitNanos, long returnCount,
+          long totalHoldNanos, long timeoutCount, long createdCount, long retiredCount, long validationFailures) {
+      this.maxSize = maxSize;
+      this.openConnections = openConnections;
+      this.idleConnections = idleConnections;
+      this.activeConnections = activeConnections;
+      this.waitingThreads = waitingThreads;
+      this.borrowCount = borrowCount;
+      this.totalBorrowWaitNanos = totalBorrowWaitNanos;
+      this.maxBorrowWaitNanos = maxBorrowWaitNanos;
+      this.returnCount = returnCount;
+      this.totalHoldNanos = totalHoldNanos;
+      this.timeoutCount = timeoutCount;
+      this.createdCount = createdCount;
+      this.retiredCount = retiredCount;
+      this.validationFailures = validationFailures;
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public int getOpenConnections() { return openConnections; }
+    public int getIdleConnections() { return idleConnections; }
+    public int getActiveConnections() { return activeConnections; }
+    public int getWaitingThreads() { return waitingThreads; }
+    public long getBorrowCount() { return borrowCount; }
+    public long getReturnCount() { return returnCount; }
+    public long getTimeoutCount() { return timeoutCount; }
+    public long getCreatedCount() { return createdCount; }
+    public long getRetiredCount() { return retiredCount; }
+    public long getValidationFailures() { return validationFailures; }
+
+    public double getAverageBorrowWaitMillis() {
+      return borrowCount == 0 ? 0.0 : totalBorrowWaitNanos / 1_000_000.0 / borrowCount;
+    }
+
+    public double getMaxBorrowWaitMillis() { return maxBorrowWaitNanos / 1_000_000.0; }
+
+    public double getAverageHoldMillis() {
+      return returnCount == 0 ? 0.0 : totalHoldNanos / 1_000_000.0 / returnCount;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+        "ConnectionPool[open=%d/%d, active=%d, idle=%d, waiting=%d, borrows=%d, avgWait=%.2fms, maxWait=%.2fms, " +
+        "avgHold=%.2fms, timeouts=%d, created=%d, retired=%d, validationFailures=%d]",
+        openConnections, maxSize, activeConnections, idleConnections, waitingThreads, borrowCount,
+        getAverageBorrowWaitMillis(), getMaxBorrowWaitMillis(), getAverageHoldMillis(),
+        timeoutCount, createdCount, retiredCount, validationFailures
+      );
+    }
+  }
+}
@@ -0,0 +1,246 @@
+package com.khazar.sims.database;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-through identity map for rows that rarely change during a session
+ * (users, courses, departments, faculties, semesters).
+ *
+ * Entries are bounded by count (least recently used is evicted first) and expire
+ * after a fixed time-to-live, so edits made by other clients show up eventually.
+ * The owning table calls {@link #invalidate(int)} after writing a single row and
+ * {@link #invalidateAll()} after writes that may touch many.
+ *
+ * Rows are mutable DTOs, so the cache keeps its own copies and hands out a fresh copy on
+ * every hit: a caller editing a returned row (a form bound to it) never changes what the
+ * next caller sees. Anything that must be current, such as credentials checked at login,
+ * should not be read through a cache at all.
+ *
+ * Thread-safe; every operation takes the cache lock for a few map operations only.
+ */
+public class EntityCache<T> {
+  private final String name;
+  private final int maxSize;
+  private final long ttlMillis;
+  private final UnaryOperator<T> copier;
+
+  /* Access-ordered, so iteration starts at the least recently used entry. Guarded by this. */
+  private final LinkedHashMap<Integer, Entry<T>> entries = new LinkedHashMap<>(64, 0.75f, true);
+  /* Result of the last full-table read. Guarded by this. */
+  private Entry<List<T>> allRows;
+  /* Bumped on every invalidation, so rows read before a write cannot be cached after it. Guarded by this. */
+  private long generation = 0;
+
+  /* ---------- Statistics ---------- */
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+
+  /**
+   * @param name      table name, used in statistics output
+   * @param maxSize   maximum number of cached rows
+   * @param ttlMillis how long a cached row stays valid
+   * @param copier    copies a row, e.g. {@code User::new} for a copy constructor
+   */
+  public EntityCache(String name, int maxSize, long ttlMillis, UnaryOperator<T> copier) {
+    if (maxSize < 1)
+      throw new IllegalArgumentException("Cache size must be at least 1.");
+
+    this.name = name;
+    this.maxSize = maxSize;
+    this.ttlMillis = ttlMillis;
+    this.copier = copier;
+  }
+
+  /* ---------------------- SINGLE ROWS ---------------------- */
+
+  /**
+   * @return a copy of the cached row, or null on a miss (absent or expired)
+   */
+  public synchronized T get(int id) {
+    Entry<T> entry = entries.get(id);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    if (entry.isExpired()) {
+      entries.remove(id);
+      expirations.increment();
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return copier.apply(entry.value);
+  }
+
+  /**
+   * @return the current generation; read it before querying and pass it to {@link #put} / {@link #putAll}
+   */
+  public synchronized long generation() {
+    return generation;
+  }
+
+  /**
+   * Caches a row loaded from the database, unless the table was written to since
+   * {@code generation} was taken (the row may already be stale).
+   */
+  public synchronized void put(int id, T value, long generation) {
+    if (value == null || generation != this.generation)
+      return;
+    entries.put(id, new Entry<>(copier.apply(value), System.currentTimeMillis() + ttlMillis));
+    evictOverflow();
+  }
+
+  /**
+   * Drops one row (and the full-table result, which may contain it). Called by the owning table
+   * after an insert, update or delete of that row.
+   */
+  public synchronized void invalidate(int id) {
+    entries.remove(id);
+    allRows = null;
+    generation++;
+    invalidations.increment();
+  }
+
+  /**
+   * Drops every cached row. Called by the owning table after writes that may touch many rows.
+   */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    allRows = null;
+    generation++;
+    invalidations.increment();
+  }
+
+  private void evictOverflow() {
+    Iterator<Entry<T>> it = entries.values().iterator();
+    while (entries.size() > maxSize && it.hasNext()) {
+      it.next();
+      it.remove();
+      evictions.increment();
+    }
+  }
+
+  /* ---------------------- FULL TABLE ---------------------- */
+
+  /**
+   * @return copies of the rows of the last full-table result, or null if there is none or it expired
+   */
+  public synchronized List<T> getAll() {
+    if (allRows == null || allRows.isExpired()) {
+      if (allRows != null) expirations.increment();
+      allRows = null;
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    List<T> rows = new ArrayList<>(allRows.value.size());
+    for (T row : allRows.value) rows.add(copier.apply(row));
+    return rows;
+  }
+
+  /**
+   * Remembers a full-table result (in iteration order) and caches each row individually as well.
+   * Tables larger than the cache are only cached row by row.
+   */
+  public synchronized void putAll(Map<Integer, T> rowsById, long generation) {
+    if (generation != this.generation)
+      return;
+    long expiresAt = System.currentTimeMillis() + ttlMillis;
+    List<T> copies = new ArrayList<>(rowsById.size());
+    for (Map.Entry<Integer, T> row : rowsById.entrySet()) {
+      T copy = copier.apply(row.getValue());
+      entries.put(row.getKey(), new Entry<>(copy, expiresAt));
+      copies.add(copy);
+    }
+    evictOverflow();
+    /* The stored copies are never handed out, so entries and the list can share them */
+    allRows = rowsById.size() <= maxSize ? new Entry<>(List.copyOf(copies), expiresAt) : null;
+  }
+
+  /* ---------------------- ENTRIES ---------------------- */
+
+  private static final class Entry<V> {
+    private final V value;
+    private final long expiresAt;
+
+    Entry(V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired() {
+      return System.currentTimeMillis() >= expiresAt;
+    }
+  }
+
+  /* ---------------------- STATISTICS ---------------------- */
+
+  /**
+   * @return a point-in-time snapshot of the cache counters
+   */
+  public Stats getStats() {
+    int size;
+    synchronized (this) {
+      size = entries.size();
+    }
+    return new Stats(name, size, maxSize, hits.sum(), misses.sum(),
+      evictions.sum(), expirations.sum(), invalidations.sum());
+  }
+
+  /**
+   * Immutable snapshot of the cache counters.
+   */
+  public static class Stats {
+    private final String name;
+    private final int size;
+    private final int maxSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+
+    Stats(String name, int size, int maxSize, long hits, long misses,
+          long evictions, long expirations, long invalidations) {
+      this.name = name;
+      this.size = size;
+      this.maxSize = maxSize;
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+      this.expirations = expirations;
+      this.invalidations = invalidations;
+    }
+
+    public String getName() { return name; }
+    public int getSize() { return size; }
+    public int getMaxSize() { return maxSize; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getExpirations() { return expirations; }
+    public long getInvalidations() { return invalidations; }
+
+    public double getHitRate() {
+      long total = hits + misses;
+      return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+        "EntityCache[%s: size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, expirations=%d, invalidations=%d]",
+        name, size, maxSize, hits, misses, getHitRate() * 100, evictions, expirations, invalidations
+      );
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.khazar.sims.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A physical connection owned by {@link ConnectionPool}.
+ *
+ * Every borrow gets a fresh proxy handle, so a caller that keeps a reference after
+ * closing it cannot touch a connection that has since been lent to someone else.
+ * prepareStatement calls on the handle go through the connection's {@link StatementCache}.
+ */
+class PooledConnection {
+  private final ConnectionPool pool;
+  private final Connection physical;
+  private final StatementCache statementCache;
+  private final long createdAt = System.currentTimeMillis();
+
+  private long lastReturnedAt = createdAt;
+  private long leasedAtNanos;
+
+  PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize, StatementCache.Counters counters) {
+    this.pool = pool;
+    this.physical = physical;
+    this.statementCache = new StatementCache(physical, statementCacheSize, counters);
+  }
+
+  /* ---------- State checks used by the pool ---------- */
+
+  boolean isExpired(long maxLifetimeMillis) {
+    return maxLifetimeMillis > 0 && System.currentTimeMillis() - createdAt >= maxLifetimeMillis;
+  }
+
+  long idleMillis() {
+    return System.currentTimeMillis() - lastReturnedAt;
+  }
+
+  long heldNanos() {
+    return System.nanoTime() - leasedAtNanos;
+  }
+
+  boolean validate(int timeoutSeconds) {
+    try {
+      return physical.isValid(timeoutSeconds);
+    }
+    catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Restores the default session state before the connection goes back to the pool.
+   * @return false if the connection is unusable and should be retired instead
+   */
+  boolean reset() {
+    try {
+      if (physical.isClosed())
+        return false;
+      if (!physical.getAutoCommit()) {
+        physical.rollback();
+        physical.setAutoCommit(true);
+      }
+      physical.clearWarnings();
+      lastReturnedAt = System.currentTimeMillis();
+      return true;
+    }
+    catch (SQLException e) {
+      return false;
+    }
+  }
+
+  void closePhysical() {
+    statementCache.closeAll();
+    try {
+      physical.close();
+    }
+    catch (SQLException e) {
+      System.err.println("ConnectionPool: failed to close connection: " + e.getMessage());
+    }
+  }
+
+  /* ---------- Handles ---------- */
+
+  /**
+   * @return a new caller-facing handle; closing it returns this connection to the pool
+   */
+  Connection lease() {
+    leasedAtNanos = System.nanoTime();
+    return (Connection) Proxy.newProxyInstance(
+      Connection.class.getClassLoader(),
+      new Class<?>[] { Connection.class },
+      new Handle()
+    );
+  }
+
+  private class Handle implements InvocationHandler {
+    private boolean closed = false;
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (!closed) {
+            closed = true;
+            pool.release(PooledConnection.this);
+          }
+          return null;
+        case "isClosed":
+          return closed || physical.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "PooledConnection[" + physical + (closed ? ", returned" : "") + "]";
+        default:
+          break;
+      }
+
+      if (closed)
+        throw new SQLException("Connection has already been returned to the pool.");
+
+      if (method.getName().equals("prepareStatement") && isCacheable(method)) {
+        int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+        return statementCache.prepare((String) args[0], autoGeneratedKeys);
+      }
+
+      try {
+        return method.invoke(physical, args);
+      }
+      catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+
+    /* Only prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys) are cached */
+    private boolean isCacheable(Method method) {
+      Class<?>[] params = method.getParameterTypes();
+      return params.length == 1
+        || (params.length == 2 && params[1] == int.class);
+    }
+  }
+}
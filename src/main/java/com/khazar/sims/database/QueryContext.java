@@ -0,0 +1,131 @@
+package com.khazar.sims.database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the statements executing on behalf of one unit of background work
+ * (a controller task), so the work can be abandoned server-side with {@link Statement#cancel()}.
+ *
+ * The context is bound to the worker thread with {@link #runWith(Runnable)}; statements handed
+ * out by the pool register themselves for the duration of each execute call. After
+ * {@link #cancel()}, running statements are killed on the server and new executions fail fast.
+ *
+ * Work done on another thread on behalf of a context must bind it there, or follow it with
+ * {@link #onCancel} when it runs in a context of its own. Cancellation never interrupts
+ * threads: interrupting a thread blocked in socket I/O closes the pooled connection, while
+ * Statement.cancel() leaves it usable.
+ */
+public final class QueryContext {
+  private static final ThreadLocal<QueryContext> CURRENT = new ThreadLocal<>();
+
+  /* MySQL's SQLSTATE for "query execution was interrupted" */
+  private static final String CANCELLED_STATE = "70100";
+
+  private final Set<Statement> active = ConcurrentHashMap.newKeySet();
+  private final List<Runnable> cancelListeners = new ArrayList<>();
+  private volatile boolean cancelled = false;
+
+  /**
+   * @return the context bound to the calling thread, or null outside background work
+   */
+  public static QueryContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Runs {@code action} on the calling thread with this context bound to it.
+   */
+  public void runWith(Runnable action) {
+    QueryContext previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      action.run();
+    }
+    finally {
+      if (previous == null) CURRENT.remove();
+      else CURRENT.set(previous);
+    }
+  }
+
+  /**
+   * Like {@link #runWith(Runnable)}, for work that returns a value or throws.
+   */
+  public <T> T callWith(Callable<T> action) throws Exception {
+    QueryContext previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      return action.call();
+    }
+    finally {
+      if (previous == null) CURRENT.remove();
+      else CURRENT.set(previous);
+    }
+  }
+
+  /**
+   * Kills every statement currently executing in this context and rejects new ones.
+   * Statement.cancel() opens a side connection to the server, so don't call this on the FX thread.
+   */
+  public void cancel() {
+    List<Runnable> listeners;
+    synchronized (cancelListeners) {
+      if (cancelled)
+        listeners = List.of();
+      else {
+        listeners = new ArrayList<>(cancelListeners);
+        cancelListeners.clear();
+      }
+      cancelled = true;
+    }
+    for (Runnable listener : listeners) {
+      listener.run();
+    }
+    for (Statement statement : active) {
+      try {
+        statement.cancel();
+      }
+      catch (SQLException e) {
+        /* the statement finished or its connection is gone */
+      }
+    }
+  }
+
+  public boolean isCancelled() { return cancelled; }
+
+  /**
+   * Runs {@code listener} once when this context is cancelled, on the cancelling thread, or
+   * right away if it already is.
+   */
+  public void onCancel(Runnable listener) {
+    synchronized (cancelListeners) {
+      if (!cancelled) {
+        cancelListeners.add(listener);
+        return;
+      }
+    }
+    listener.run();
+  }
+
+  /* ---------- Called by the statement handles ---------- */
+
+  void begin(Statement statement) throws SQLException {
+    if (cancelled)
+      throw new SQLException("Query cancelled.", CANCELLED_STATE);
+    active.add(statement);
+    /* cancel() may have run between the check and the add */
+    if (cancelled) {
+      active.remove(statement);
+      throw new SQLException("Query cancelled.", CANCELLED_STATE);
+    }
+  }
+
+  void end(Statement statement) {
+    active.remove(statement);
+  }
+}
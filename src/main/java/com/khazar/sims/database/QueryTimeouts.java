@@ -0,0 +1,68 @@
+package com.khazar.sims.database;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-DAO-method query timeouts, read from db.properties:
+ *
+ * <pre>
+ * db.queryTimeout.default=30
+ * db.queryTimeout.EnrollmentTable.getAll=10
+ * db.queryTimeout.AttendanceTable.getRosterForSchedule=5
+ * </pre>
+ *
+ * The key is the simple name of the table class plus the DAO method name. Each read method
+ * passes its own key when it prepares its statement:
+ * {@code ps.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.getAll"))}; BaseTable's
+ * inherited reads use the concrete table's name (e.g. {@code UserTable.getById}).
+ * Statements whose caller sets no timeout (writes, migrations) run with the default.
+ * Timeouts are in seconds; 0 disables the timeout.
+ */
+public final class QueryTimeouts {
+  private static final String PREFIX = "db.queryTimeout.";
+  private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+
+  private static volatile Properties config = new Properties();
+  private static volatile int defaultSeconds = DEFAULT_TIMEOUT_SECONDS;
+  /* Resolved timeout per DAO method key */
+  private static final Map<String, Integer> resolved = new ConcurrentHashMap<>();
+
+  private QueryTimeouts() {}
+
+  /**
+   * Loads the timeouts from the database configuration. Called once by Database.init().
+   */
+  static void configure(Properties properties) {
+    config = properties;
+    defaultSeconds = parse(properties.getProperty(PREFIX + "default"), DEFAULT_TIMEOUT_SECONDS);
+    resolved.clear();
+  }
+
+  /**
+   * @return the timeout for the given DAO method key, falling back to the default
+   */
+  public static int forMethod(String key) {
+    return resolved.computeIfAbsent(key, k -> parse(config.getProperty(PREFIX + k), defaultSeconds));
+  }
+
+  /**
+   * @return the timeout for statements whose caller did not set one
+   */
+  static int getDefault() {
+    return defaultSeconds;
+  }
+
+  private static int parse(String value, int fallback) {
+    if (value == null || value.isBlank())
+      return fallback;
+    try {
+      return Math.max(0, Integer.parseInt(value.strip()));
+    }
+    catch (NumberFormatException e) {
+      System.err.println("QueryTimeouts: ignoring invalid timeout '" + value + "'");
+      return fallback;
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package com.khazar.sims.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned schema migrations.
+ *
+ * Scripts live on the classpath under {@code /db/migration/V<version>__<description>.sql}
+ * and are listed in {@link #MIGRATIONS} in the order they must run. Every applied script
+ * is recorded in {@code schema_version} together with its SHA-256 checksum, so an
+ * up-to-date database costs one metadata lookup and one SELECT at startup and no DDL at all.
+ *
+ * Applied scripts must never be edited; add a new version instead. A checksum mismatch
+ * aborts the migration rather than guessing which schema the database actually has.
+ */
+public class SchemaMigrator {
+
+  /* Ordered list of every migration shipped with the application */
+  private static final List<Migration> MIGRATIONS = List.of(
+    new Migration(1, "baseline"),
+    new Migration(2, "indexes"),
+    new Migration(3, "user_search")
+  );
+
+  private static final String VERSION_TABLE = "schema_version";
+  /* Serializes migrations when several clients start against the same database */
+  private static final String LOCK_NAME = "sims_schema_migration";
+  private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+  private final Connection connection;
+
+  public SchemaMigrator(Connection connection) {
+    this.connection = connection;
+  }
+
+  /**
+   * Applies every migration newer than the recorded schema version.
+   *
+   * @return the number of migrations applied (0 if the schema was already current)
+   * @throws SQLException if a script fails, or an applied script no longer matches its checksum
+   */
+  public int migrate() throws SQLException {
+    if (isCurrent())
+      return 0;
+
+    acquireLock();
+    try {
+      createVersionTable();
+      /* Another client may have migrated while we waited for the lock */
+      Map<Integer, String> applied = loadApplied();
+
+      int count = 0;
+      for (Migration migration : MIGRATIONS) {
+        String script = migration.load();
+        String checksum = checksum(script);
+        String recorded = applied.get(migration.version);
+
+        if (recorded != null) {
+          verify(migration, recorded, checksum);
+          continue;
+        }
+        apply(migration, script, checksum);
+        count++;
+      }
+      return count;
+    }
+    finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Fast path: true if every known migration is recorded with a matching checksum.
+   */
+  private boolean isCurrent() throws SQLException {
+    if (!versionTableExists())
+      return false;
+
+    Map<Integer, String> applied = loadApplied();
+    if (applied.size() < MIGRATIONS.size())
+      return false;
+
+    for (Migration migration : MIGRATIONS) {
+      String recorded = applied.get(migration.version);
+      if (recorded == null)
+        return false;
+      verify(migration, recorded, checksum(migration.load()));
+    }
+    return true;
+  }
+
+  /* ---------------------- VERSION TABLE ---------------------- */
+
+  private boolean versionTableExists() throws SQLException {
+    DatabaseMetaData meta = connection.getMetaData();
+    try (ResultSet rs = meta.getTables(connection.getCatalog(), null, VERSION_TABLE, new String[] { "TABLE" })) {
+      return rs.next();
+    }
+  }
+
+  private void createVersionTable() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("""
+        CREATE TABLE IF NOT EXISTS schema_version (
+          version INT PRIMARY KEY,
+          description VARCHAR(200) NOT NULL,
+          checksum CHAR(64) NOT NULL,
+          installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+        );
+      """);
+    }
+  }
+
+  private Map<Integer, String> loadApplied() throws SQLException {
+    Map<Integer, String> applied = new HashMap<>();
+    try (Statement statement = connection.createStatement();
+      ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_version")) {
+      while (rs.next()) {
+        applied.put(rs.getInt("version"), rs.getString("checksum"));
+      }
+    }
+    return applied;
+  }
+
+  /* ---------------------- APPLYING ---------------------- */
+
+  /**
+   * Runs a script statement by statement and records it. MySQL commits DDL implicitly,
+   * so the version row is written only after the last statement succeeded; a failed
+   * script is retried from the start on the next launch.
+   */
+  private void apply(Migration migration, String script, String checksum) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : split(script)) {
+        statement.execute(sql);
+      }
+    }
+    catch (SQLException e) {
+      throw new SQLException("Migration " + migration.fileName() + " failed: " + e.getMessage(), e);
+    }
+
+    final String sql = "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)";
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      ps.setInt(1, migration.version);
+      ps.setString(2, migration.description);
+      ps.setString(3, checksum);
+      ps.executeUpdate();
+    }
+    System.out.println("Applied schema migration " + migration.fileName());
+  }
+
+  private static void verify(Migration migration, String recorded, String checksum) throws SQLException {
+    if (!recorded.equalsIgnoreCase(checksum))
+      throw new SQLException("Checksum mismatch for applied migration " + migration.fileName()
+        + ": the script was modified after it ran. Add a new migration instead.");
+  }
+
+  /**
+   * Splits a script into statements on a trailing semicolon. Comment-only lines are dropped;
+   * scripts must not contain semicolons inside string literals.
+   */
+  static List<String> split(String script) {
+    List<String> statements = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    for (String line : script.split("\n")) {
+      String trimmed = line.strip();
+      if (trimmed.isEmpty() || trimmed.startsWith("--"))
+        continue;
+
+      current.append(line).append('\n');
+      if (trimmed.endsWith(";")) {
+        statements.add(current.toString().strip());
+        current.setLength(0);
+      }
+    }
+    if (!current.toString().isBlank())
+      statements.add(current.toString().strip());
+    return statements;
+  }
+
+  /* ---------------------- LOCKING ---------------------- */
+
+  private void acquireLock() throws SQLException {
+    try (PreparedStatement ps = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+      ps.setString(1, LOCK_NAME);
+      ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+      try (ResultSet rs = ps.executeQuery()) {
+        if (!rs.next() || rs.getInt(1) != 1)
+          throw new SQLException("Timed out waiting for the schema migration lock.");
+      }
+    }
+  }
+
+  private void releaseLock() {
+    try (PreparedStatement ps = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+      ps.setString(1, LOCK_NAME);
+      ps.executeQuery().close();
+    }
+    catch (SQLException e) {
+      /* The lock is released with the session anyway */
+    }
+  }
+
+  /* ---------------------- SCRIPTS ---------------------- */
+
+  /**
+   * SHA-256 of the script with line endings normalized, so a checkout with CRLF endings
+   * does not look like an edited migration.
+   */
+  static String checksum(String script) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(hash);
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+  }
+
+  private static final class Migration {
+    private final int version;
+    private final String description;
+
+    Migration(int version, String description) {
+      this.version = version;
+      this.description = description;
+    }
+
+    String fileName() {
+      return "V" + version + "__" + description + ".sql";
+    }
+
+    String load() throws SQLException {
+      String path = "/db/migration/" + fileName();
+      try (InputStream in = SchemaMigrator.class.getResourceAsStream(path)) {
+        if (in == null)
+          throw new SQLException("Migration script not found on the classpath: " + path);
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      }
+      catch (IOException e) {
+        throw new SQLException("Could not read migration script " + path, e);
+      }
+    }
+  }
+}
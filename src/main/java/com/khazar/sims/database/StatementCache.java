@@ -0,0 +1,288 @@
+package com.khazar.sims.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of PreparedStatements for one physical connection, keyed by SQL text.
+ *
+ * Closing a statement handed out by the cache only clears its parameters (and any row
+ * limit the caller set) and puts it back, so the parse (and, with server-side prepared
+ * statements, the server handle) survives across DAO calls. Statements pushed out by the
+ * LRU bound are really closed.
+ * Check-in also resets the query timeout and fetch size, so one DAO method's settings never
+ * leak into another.
+ *
+ * Not thread-safe: a connection is only ever used by the thread that borrowed it.
+ */
+public class StatementCache {
+  private final Connection physical;
+  private final int maxSize;
+  private final Counters counters;
+
+  /* Access-ordered, so iteration starts at the least recently used statement */
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  StatementCache(Connection physical, int maxSize, Counters counters) {
+    this.physical = physical;
+    this.maxSize = maxSize;
+    this.counters = counters;
+  }
+
+  /**
+   * Returns a cached statement for the SQL text, preparing (and caching) it on a miss.
+   * If the cached statement is already checked out (nested use of the same query on
+   * one connection), an uncached statement is returned instead.
+   */
+  PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+    Key key = new Key(sql, autoGeneratedKeys);
+    Entry entry = entries.get(key);
+
+    if (entry != null && !entry.inUse) {
+      counters.hits.increment();
+      return entry.checkOut();
+    }
+
+    counters.misses.increment();
+    PreparedStatement statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+      ? physical.prepareStatement(sql)
+      : physical.prepareStatement(sql, autoGeneratedKeys);
+
+    if (entry != null || maxSize <= 0)
+      return Entry.uncached(statement).checkOut(); /* closed for real on check-in */
+
+    entry = new Entry(statement);
+    entries.put(key, entry);
+    evictOverflow();
+    return entry.checkOut();
+  }
+
+  private void evictOverflow() {
+    Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+    while (entries.size() > maxSize && it.hasNext()) {
+      Entry eldest = it.next().getValue();
+      it.remove();
+      counters.evictions.increment();
+      eldest.evicted = true;
+      if (!eldest.inUse)
+        eldest.closeQuietly();
+    }
+  }
+
+  /**
+   * Closes every cached statement. Called before the physical connection is closed.
+   */
+  void closeAll() {
+    for (Entry entry : entries.values()) {
+      entry.closeQuietly();
+    }
+    entries.clear();
+  }
+
+  /* ---------------------- ENTRIES ---------------------- */
+
+  private static final class Key {
+    private final String sql;
+    private final int autoGeneratedKeys;
+
+    Key(String sql, int autoGeneratedKeys) {
+      this.sql = sql;
+      this.autoGeneratedKeys = autoGeneratedKeys;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key other)) return false;
+      return autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+    }
+
+    @Override
+    public int hashCode() { return 31 * sql.hashCode() + autoGeneratedKeys; }
+  }
+
+  private static final class Entry {
+    private final PreparedStatement statement;
+    private boolean inUse = false;
+    private boolean evicted = false;
+
+    Entry(PreparedStatement statement) {
+      this.statement = statement;
+    }
+
+    /* A statement outside the cache still gets a handle, for cancellation and timeouts */
+    static Entry uncached(PreparedStatement statement) {
+      Entry entry = new Entry(statement);
+      entry.evicted = true;
+      return entry;
+    }
+
+    PreparedStatement checkOut() {
+      inUse = true;
+      return (PreparedStatement) Proxy.newProxyInstance(
+        PreparedStatement.class.getClassLoader(),
+        new Class<?>[] { PreparedStatement.class },
+        new Handle(this)
+      );
+    }
+
+    /**
+     * Makes the statement reusable, or closes it if it was evicted while checked out.
+     */
+    void checkIn() {
+      inUse = false;
+      if (evicted) {
+        closeQuietly();
+        return;
+      }
+      try {
+        statement.clearParameters();
+        statement.clearBatch();
+        statement.clearWarnings();
+        statement.setMaxRows(0); /* a capped caller must not truncate the next one */
+        statement.setQueryTimeout(0);
+        statement.setFetchSize(0);
+      }
+      catch (SQLException e) {
+        evicted = true;
+        closeQuietly();
+      }
+    }
+
+    void closeQuietly() {
+      try {
+        statement.close();
+      }
+      catch (SQLException ignored) {
+        /* the connection is most likely gone already */
+      }
+    }
+  }
+
+  /**
+   * Caller-facing handle; close() returns the statement to the cache.
+   *
+   * Every execute call runs with the timeout the DAO method set from {@link QueryTimeouts}, or
+   * the default if it set none, and is registered with the thread's {@link QueryContext} while
+   * it runs.
+   */
+  private static final class Handle implements InvocationHandler {
+    private final Entry entry;
+    private boolean closed = false;
+    private boolean explicitTimeout = false;
+
+    Handle(Entry entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (!closed) {
+            closed = true;
+            entry.checkIn();
+          }
+          return null;
+        case "isClosed":
+          return closed || entry.statement.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "CachedStatement[" + entry.statement + "]";
+        default:
+          break;
+      }
+
+      if (closed)
+        throw new SQLException("Statement has already been closed.");
+
+      if (method.getName().equals("setQueryTimeout"))
+        explicitTimeout = true;
+      if (method.getName().startsWith("execute"))
+        return execute(method, args);
+
+      try {
+        return method.invoke(entry.statement, args);
+      }
+      catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+
+    private Object execute(Method method, Object[] args) throws Throwable {
+      if (!explicitTimeout)
+        entry.statement.setQueryTimeout(QueryTimeouts.getDefault());
+
+      QueryContext context = QueryContext.current();
+      if (context != null)
+        context.begin(entry.statement);
+      try {
+        return method.invoke(entry.statement, args);
+      }
+      catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+      finally {
+        if (context != null)
+          context.end(entry.statement);
+      }
+    }
+  }
+
+  /* ---------------------- STATISTICS ---------------------- */
+
+  /**
+   * Hit/miss counters shared by the caches of all connections in one pool.
+   */
+  static final class Counters {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    Stats snapshot() {
+      return new Stats(hits.sum(), misses.sum(), evictions.sum());
+    }
+  }
+
+  /**
+   * Immutable snapshot of the statement cache counters.
+   */
+  public static class Stats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    Stats(long hits, long misses, long evictions) {
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+
+    public double getHitRate() {
+      long total = hits + misses;
+      return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("StatementCache[hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%]",
+        hits, misses, evictions, getHitRate() * 100);
+    }
+  }
+}
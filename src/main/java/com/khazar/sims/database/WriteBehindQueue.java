@@ -0,0 +1,183 @@
+package com.khazar.sims.database;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues low-priority writes (e.g. users.last_login) and applies them later in batches.
+ *
+ * {@link #enqueue} only records the value and returns; the caller never waits on the database.
+ * Writes to the same key coalesce, so only the newest value is written. Pending writes are
+ * flushed every {@code intervalMillis}, or right away once {@code maxBatch} keys are waiting.
+ * Flushes run one at a time on the queue's own thread. A failed flush puts its entries back
+ * (unless a newer value arrived meanwhile) for the next attempt.
+ *
+ * {@link #shutdown(long)} stops the timer and drains what is left; Session.shutdown() calls it
+ * before closing the connection pool. Writes are lost only if the process dies first, which
+ * is why this is for data that may lag or go missing, not for anything a user entered.
+ */
+public final class WriteBehindQueue<K, V> {
+  private static final long DEFAULT_INTERVAL_MILLIS = 2_000;
+  private static final int DEFAULT_MAX_BATCH = 256;
+
+  /**
+   * Writes a batch of values, e.g. one JDBC batch of UPDATEs.
+   */
+  @FunctionalInterface
+  public interface Flusher<K, V> {
+    void flush(Map<K, V> batch) throws SQLException;
+  }
+
+  private final String name;
+  private final Flusher<K, V> flusher;
+  private final int maxBatch;
+  private final ScheduledExecutorService executor;
+
+  /* Newest value per key, in first-queued order. Guarded by this. */
+  private Map<K, V> pending = new LinkedHashMap<>();
+  private boolean closed = false;
+  /* Set while an early (full-batch) flush is scheduled, so only one is queued at a time */
+  private boolean flushScheduled = false;
+
+  public WriteBehindQueue(String name, Flusher<K, V> flusher) {
+    this(name, flusher, DEFAULT_INTERVAL_MILLIS, DEFAULT_MAX_BATCH);
+  }
+
+  /**
+   * @param name           used in the thread name and error messages
+   * @param flusher        applies a batch to the database
+   * @param intervalMillis time between periodic flushes
+   * @param maxBatch       a flush starts early once this many keys are pending; also the
+   *                       largest batch handed to the flusher
+   */
+  public WriteBehindQueue(String name, Flusher<K, V> flusher, long intervalMillis, int maxBatch) {
+    if (maxBatch < 1)
+      throw new IllegalArgumentException("Batch size must be at least 1.");
+    if (intervalMillis < 1)
+      throw new IllegalArgumentException("Flush interval must be positive.");
+    this.name = name;
+    this.flusher = flusher;
+    this.maxBatch = maxBatch;
+    this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "sims-write-behind-" + name);
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Queues a write, replacing any pending value of the same key.
+   *
+   * @return false if the queue has been shut down and the write was dropped
+   */
+  public boolean enqueue(K key, V value) {
+    synchronized (this) {
+      if (closed)
+        return false;
+      pending.remove(key);
+      pending.put(key, value);
+      if (pending.size() < maxBatch || flushScheduled)
+        return true;
+      flushScheduled = true;
+    }
+    executor.execute(this::flushQuietly);
+    return true;
+  }
+
+  /**
+   * @return the number of keys waiting to be written
+   */
+  public synchronized int getDepth() {
+    return pending.size();
+  }
+
+  /**
+   * Writes everything pending now, on the calling thread.
+   *
+   * @throws SQLException from the first failed batch; its entries are queued again
+   */
+  public void flush() throws SQLException {
+    synchronized (executor) { /* one flush at a time, whichever thread runs it */
+      while (true) {
+        Map<K, V> batch = takeBatch();
+        if (batch.isEmpty())
+          return;
+        try {
+          flusher.flush(batch);
+        }
+        catch (SQLException | RuntimeException e) {
+          requeue(batch);
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops the timer and drains the queue. Later writes are dropped.
+   *
+   * @param timeoutMillis how long to wait for a running flush before draining
+   */
+  public void shutdown(long timeoutMillis) {
+    synchronized (this) {
+      closed = true;
+    }
+    executor.shutdown();
+    try {
+      executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    try {
+      flush();
+    }
+    catch (SQLException | RuntimeException e) {
+      System.err.println("Write-behind queue '" + name + "' lost " + getDepth() + " writes on shutdown: " + e);
+    }
+  }
+
+  /* Timer and full-batch flushes: a failure is logged and retried on the next tick */
+  private void flushQuietly() {
+    synchronized (this) {
+      flushScheduled = false;
+    }
+    try {
+      flush();
+    }
+    catch (SQLException | RuntimeException e) {
+      System.err.println("Write-behind queue '" + name + "' flush failed (" + getDepth() + " pending): " + e);
+    }
+  }
+
+  /* Removes up to maxBatch of the oldest entries */
+  private synchronized Map<K, V> takeBatch() {
+    if (pending.size() <= maxBatch) {
+      Map<K, V> batch = pending;
+      pending = new LinkedHashMap<>();
+      return batch;
+    }
+    Map<K, V> batch = new LinkedHashMap<>();
+    var it = pending.entrySet().iterator();
+    while (batch.size() < maxBatch) {
+      var entry = it.next();
+      batch.put(entry.getKey(), entry.getValue());
+      it.remove();
+    }
+    return batch;
+  }
+
+  /* Puts a failed batch back ahead of newer writes, keeping newer values of the same keys */
+  private synchronized void requeue(Map<K, V> batch) {
+    Map<K, V> merged = new LinkedHashMap<>(batch);
+    merged.keySet().removeAll(pending.keySet());
+    merged.putAll(pending);
+    pending = merged;
+  }
+}
@@ -0,0 +1,28 @@
+package com.khazar.sims.database.data;
+
+/**
+ * One enrolled student on the attendance sheet of a class session,
+ * with the attendance recorded for that session (if any).
+ */
+public class AttendanceRosterEntry {
+  private final int studentId;
+  private final String firstName;
+  private final String lastName;
+  private final AttendanceStatus status;
+
+  public AttendanceRosterEntry(int studentId, String firstName, String lastName, AttendanceStatus status) {
+    this.studentId = studentId;
+    this.firstName = firstName;
+    this.lastName = lastName;
+    this.status = status;
+  }
+
+  public String getFullName() {
+    return firstName + " " + lastName;
+  }
+
+  public int getStudentId() { return studentId; }
+  public String getFirstName() { return firstName; }
+  public String getLastName() { return lastName; }
+  public AttendanceStatus getStatus() { return status; }
+}
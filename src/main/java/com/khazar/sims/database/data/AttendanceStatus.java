@@ -0,0 +1,17 @@
+package com.khazar.sims.database.data;
+
+/**
+ * Attendance of one student at one class session.
+ * UNRECORDED means the teacher has not taken attendance for that student yet.
+ */
+public enum AttendanceStatus {
+  PRESENT, ABSENT, UNRECORDED;
+
+  /**
+   * Maps the nullable attendances.present column (NULL when there is no row, e.g. from a LEFT JOIN).
+   */
+  public static AttendanceStatus of(Boolean present) {
+    if (present == null) return UNRECORDED;
+    return present ? PRESENT : ABSENT;
+  }
+}
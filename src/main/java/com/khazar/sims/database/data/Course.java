@@ -15,6 +15,11 @@ public class Course {
     this.departmentId = departmentId;
   }
 
+  /* copy, e.g. of a cached row */
+  public Course(Course other) {
+    this(other.id, other.code, other.name, other.credits, other.departmentId);
+  }
+
   public int getId()                            { return id; }
   public void setId(int id)                     { this.id = id; }
 
@@ -22,6 +22,11 @@ public class Department {
     this.facultyId = facultyId;
   }
 
+  /* copy, e.g. of a cached row */
+  public Department(Department other) {
+    this(other.id, other.facultyId, other.name, other.code);
+  }
+
   public int getId() { return id; }
   public String getName() { return name; }
   public String getCode() { return code; }
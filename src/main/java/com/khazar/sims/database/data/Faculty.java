@@ -21,6 +21,11 @@ public class Faculty {
     this.code = code;
   }
 
+  /* copy, e.g. of a cached row */
+  public Faculty(Faculty other) {
+    this(other.id, other.name, other.code);
+  }
+
   public int getId() { return id; }
   public String getName() { return name; }
   public String getCode() { return code; }
@@ -0,0 +1,109 @@
+package com.khazar.sims.database.data;
+
+import java.util.Arrays;
+
+/**
+ * Students × assessments score matrix of one course offering.
+ *
+ * Scores are kept in a single row-major {@code int[]} (row = student, column = assessment),
+ * with {@link #MISSING} for assessments a student has no score for. Totals, percentages and
+ * per-assessment averages are computed once at construction, so rendering a cell is an
+ * array read.
+ */
+public class Gradebook {
+  /** Marks a student/assessment pair without a score. */
+  public static final int MISSING = -1;
+
+  private final int offeringId;
+
+  /* Rows */
+  private final int[] studentIds;
+  private final String[] studentNames;
+
+  /* Columns */
+  private final String[] assessmentNames;
+  private final int[] maxScores;
+
+  /* studentCount × assessmentCount, row-major */
+  private final int[] scores;
+
+  /* Derived, filled by computeAggregates() */
+  private final int[] totals;
+  private final int[] totalMax;
+  private final double[] averages;
+
+  /**
+   * Arrays are taken over, not copied. {@code scores} must hold
+   * studentIds.length × assessmentNames.length entries.
+   */
+  public Gradebook(int offeringId, int[] studentIds, String[] studentNames,
+                   String[] assessmentNames, int[] maxScores, int[] scores) {
+    if (scores.length != studentIds.length * assessmentNames.length)
+      throw new IllegalArgumentException("Score matrix does not match the row and column counts.");
+
+    this.offeringId = offeringId;
+    this.studentIds = studentIds;
+    this.studentNames = studentNames;
+    this.assessmentNames = assessmentNames;
+    this.maxScores = maxScores;
+    this.scores = scores;
+    this.totals = new int[studentIds.length];
+    this.totalMax = new int[studentIds.length];
+    this.averages = new double[assessmentNames.length];
+    computeAggregates();
+  }
+
+  /* One pass over the matrix: row totals and column sums together */
+  private void computeAggregates() {
+    int columns = assessmentNames.length;
+    long[] columnSums = new long[columns];
+    int[] columnCounts = new int[columns];
+
+    for (int row = 0; row < studentIds.length; row++) {
+      int base = row * columns;
+      for (int col = 0; col < columns; col++) {
+        int score = scores[base + col];
+        if (score == MISSING) continue;
+        totals[row] += score;
+        totalMax[row] += maxScores[col];
+        columnSums[col] += score;
+        columnCounts[col]++;
+      }
+    }
+
+    for (int col = 0; col < columns; col++) {
+      averages[col] = columnCounts[col] == 0 ? Double.NaN : (double) columnSums[col] / columnCounts[col];
+    }
+  }
+
+  public int getOfferingId() { return offeringId; }
+  public int getStudentCount() { return studentIds.length; }
+  public int getAssessmentCount() { return assessmentNames.length; }
+
+  public int getStudentId(int row) { return studentIds[row]; }
+  public String getStudentName(int row) { return studentNames[row]; }
+  public String getAssessmentName(int col) { return assessmentNames[col]; }
+  public int getMaxScore(int col) { return maxScores[col]; }
+
+  /** @return the score, or {@link #MISSING} */
+  public int getScore(int row, int col) {
+    return scores[row * assessmentNames.length + col];
+  }
+
+  /** Sum of the student's scores. */
+  public int getTotal(int row) { return totals[row]; }
+
+  /** Total as a percentage of the maximum of the assessments the student has a score for; NaN if none. */
+  public double getPercentage(int row) {
+    return totalMax[row] == 0 ? Double.NaN : 100.0 * totals[row] / totalMax[row];
+  }
+
+  /** Mean score of an assessment over the students who have one; NaN if nobody has. */
+  public double getAverage(int col) { return averages[col]; }
+
+  @Override
+  public String toString() {
+    return "Gradebook[offering=" + offeringId + ", students=" + studentIds.length
+      + ", assessments=" + Arrays.toString(assessmentNames) + "]";
+  }
+}
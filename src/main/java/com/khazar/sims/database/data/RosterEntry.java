@@ -0,0 +1,35 @@
+package com.khazar.sims.database.data;
+
+/**
+ * Read-only projection of one student on an offering's roster.
+ * Joins enrollments, users, students and departments in a single query.
+ */
+public class RosterEntry {
+  private final int studentId;
+  private final String firstName;
+  private final String lastName;
+  private final String email;
+  private final String departmentName;
+  private final Double finalGrade;
+
+  public RosterEntry(int studentId, String firstName, String lastName, String email,
+                     String departmentName, Double finalGrade) {
+    this.studentId = studentId;
+    this.firstName = firstName;
+    this.lastName = lastName;
+    this.email = email;
+    this.departmentName = departmentName;
+    this.finalGrade = finalGrade;
+  }
+
+  public String getFullName() {
+    return firstName + " " + lastName;
+  }
+
+  public int getStudentId() { return studentId; }
+  public String getFirstName() { return firstName; }
+  public String getLastName() { return lastName; }
+  public String getEmail() { return email; }
+  public String getDepartmentName() { return departmentName; }
+  public Double getFinalGrade() { return finalGrade; }
+}
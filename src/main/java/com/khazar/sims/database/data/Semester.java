@@ -18,6 +18,13 @@ public class Semester {
     this.id = id;
   }
 
+  /* Copy, e.g. of a cached row; the dates are copied as well since they are mutable */
+  public Semester(Semester other) {
+    this(other.id, other.name,
+      other.startDate != null ? new Date(other.startDate.getTime()) : null,
+      other.endDate != null ? new Date(other.endDate.getTime()) : null);
+  }
+
   public int getId() { return id; }
   public void setId(int id) { this.id = id; }
   
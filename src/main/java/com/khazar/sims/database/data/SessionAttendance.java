@@ -0,0 +1,33 @@
+package com.khazar.sims.database.data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * One class session of an offering together with a single student's attendance at it.
+ */
+public class SessionAttendance {
+  private final int scheduleId;
+  private final LocalDate date;
+  private final String dayOfWeek;
+  private final LocalTime startTime;
+  private final LocalTime endTime;
+  private final AttendanceStatus status;
+
+  public SessionAttendance(int scheduleId, LocalDate date, String dayOfWeek,
+                           LocalTime startTime, LocalTime endTime, AttendanceStatus status) {
+    this.scheduleId = scheduleId;
+    this.date = date;
+    this.dayOfWeek = dayOfWeek;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.status = status;
+  }
+
+  public int getScheduleId() { return scheduleId; }
+  public LocalDate getDate() { return date; }
+  public String getDayOfWeek() { return dayOfWeek; }
+  public LocalTime getStartTime() { return startTime; }
+  public LocalTime getEndTime() { return endTime; }
+  public AttendanceStatus getStatus() { return status; }
+}
@@ -0,0 +1,33 @@
+package com.khazar.sims.database.data;
+
+import java.util.List;
+
+/**
+ * A student's attendance in one course offering: every session plus the
+ * present/absent/total counts, which are computed by the database.
+ */
+public class StudentAttendanceSummary {
+  private final List<SessionAttendance> sessions;
+  private final int totalSessions;
+  private final int presentCount;
+  private final int absentCount;
+
+  public StudentAttendanceSummary(List<SessionAttendance> sessions, int totalSessions, int presentCount, int absentCount) {
+    this.sessions = sessions;
+    this.totalSessions = totalSessions;
+    this.presentCount = presentCount;
+    this.absentCount = absentCount;
+  }
+
+  public List<SessionAttendance> getSessions() { return sessions; }
+  public int getTotalSessions() { return totalSessions; }
+  public int getPresentCount() { return presentCount; }
+  public int getAbsentCount() { return absentCount; }
+  public int getRecordedCount() { return presentCount + absentCount; }
+
+  /** Percentage of recorded sessions attended; unrecorded sessions do not count against the student. */
+  public double getAttendanceRate() {
+    int recorded = getRecordedCount();
+    return recorded > 0 ? presentCount * 100.0 / recorded : 0.0;
+  }
+}
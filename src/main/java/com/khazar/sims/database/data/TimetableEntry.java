@@ -0,0 +1,48 @@
+package com.khazar.sims.database.data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Read-only row of a weekly timetable: one scheduled class session joined
+ * with its offering and course.
+ */
+public class TimetableEntry {
+  private final int scheduleId;
+  private final int offeringId;
+  private final String dayOfWeek;
+  private final LocalDate date;
+  private final LocalTime startTime;
+  private final LocalTime endTime;
+  private final String room;
+  private final String courseCode;
+  private final String courseName;
+  private final String section;
+
+  public TimetableEntry(int scheduleId, int offeringId, String dayOfWeek, LocalDate date,
+                        LocalTime startTime, LocalTime endTime, String room,
+                        String courseCode, String courseName, String section) {
+    this.scheduleId = scheduleId;
+    this.offeringId = offeringId;
+    this.dayOfWeek = dayOfWeek;
+    this.date = date;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.room = room;
+    this.courseCode = courseCode;
+    this.courseName = courseName;
+    this.section = section;
+  }
+
+  public int getScheduleId() { return scheduleId; }
+  public int getCourseOfferingId() { return offeringId; }
+  public String getDayOfWeek() { return dayOfWeek; }
+  /** Date of a one-off session, or null for a session repeating every week. */
+  public LocalDate getDate() { return date; }
+  public LocalTime getStartTime() { return startTime; }
+  public LocalTime getEndTime() { return endTime; }
+  public String getRoom() { return room; }
+  public String getCourseCode() { return courseCode; }
+  public String getCourseName() { return courseName; }
+  public String getSection() { return section; }
+}
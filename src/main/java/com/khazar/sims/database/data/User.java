@@ -35,6 +35,17 @@ public class User {
     this.isActive = true;
   }
 
+  /* Copy, e.g. of a cached row; the dates are copied as well since they are mutable */
+  public User(User other) {
+    this(other.id, other.role, other.firstName, other.lastName, other.email, other.password,
+      other.dateOfBirth != null ? new Date(other.dateOfBirth.getTime()) : null);
+    this.isActive = other.isActive;
+    if (other.lastLogin != null) {
+      this.lastLogin = new Timestamp(other.lastLogin.getTime());
+      this.lastLogin.setNanos(other.lastLogin.getNanos());
+    }
+  }
+
   public int getId() { return id; }
   public void setId(int id) { this.id = id; }
 
@@ -1,7 +1,12 @@
 package com.khazar.sims.database.table;
 
 import com.khazar.sims.core.Session;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.Attendance;
+import com.khazar.sims.database.data.AttendanceRosterEntry;
+import com.khazar.sims.database.data.AttendanceStatus;
+import com.khazar.sims.database.data.SessionAttendance;
+import com.khazar.sims.database.data.StudentAttendanceSummary;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -23,8 +28,8 @@ public class AttendanceTable {
       ON DUPLICATE KEY UPDATE present = VALUES(present)
     """;
     
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(sql)) {
       for (Attendance a : attendanceRecords) {
         stmt.setInt(1, a.getSessionId());
         stmt.setInt(2, a.getStudentId());
@@ -38,20 +43,96 @@ public class AttendanceTable {
   /* ---------- Retrieve attendance for a specific schedule session (used by Teacher) ---------- */
   public List<Attendance> getForSchedule(int sessionId) throws SQLException {
     final String sql = "SELECT session_id, student_id, present FROM attendances WHERE session_id = ?";
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(sql)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("AttendanceTable.getForSchedule"));
       stmt.setInt(1, sessionId);
       return fetchList(stmt);
     }
   }
 
+  /* ---------- Attendance sheet for a schedule session: every enrolled student plus their status (used by Teacher) ---------- */
+  public List<AttendanceRosterEntry> getRosterForSchedule(int scheduleId) throws SQLException {
+    /* LEFT JOIN so students without a row yet come back as UNRECORDED */
+    final String sql = """
+      SELECT e.student_id, u.first_name, u.last_name, a.present
+      FROM schedules s
+      JOIN enrollments e ON e.offering_id = s.offering_id
+      JOIN users u ON u.id = e.student_id
+      LEFT JOIN attendances a ON a.session_id = s.id AND a.student_id = e.student_id
+      WHERE s.id = ?
+      ORDER BY u.last_name, u.first_name, e.student_id
+    """;
+    List<AttendanceRosterEntry> roster = new ArrayList<>();
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(sql)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("AttendanceTable.getRosterForSchedule"));
+      stmt.setInt(1, scheduleId);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          roster.add(new AttendanceRosterEntry(
+            rs.getInt("student_id"),
+            rs.getString("first_name"),
+            rs.getString("last_name"),
+            AttendanceStatus.of(rs.getObject("present", Boolean.class))
+          ));
+        }
+      }
+    }
+    return roster;
+  }
+
+  /* ---------- One student's attendance in one offering, with totals computed in SQL (used by Student) ---------- */
+  public StudentAttendanceSummary getStudentAttendanceForOffering(int studentId, int offeringId) throws SQLException {
+    /* Window aggregates repeat the totals on every row, so sessions and counts arrive in one result set */
+    final String sql = """
+      SELECT s.id, s.date, s.day_of_week, s.start_time, s.end_time, a.present,
+             COUNT(*) OVER () AS total_sessions,
+             SUM(CASE WHEN a.present = 1 THEN 1 ELSE 0 END) OVER () AS present_count,
+             SUM(CASE WHEN a.present = 0 THEN 1 ELSE 0 END) OVER () AS absent_count
+      FROM schedules s
+      LEFT JOIN attendances a ON a.session_id = s.id AND a.student_id = ?
+      WHERE s.offering_id = ?
+      ORDER BY s.date, s.start_time
+    """;
+    List<SessionAttendance> sessions = new ArrayList<>();
+    int total = 0, present = 0, absent = 0;
+
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(sql)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("AttendanceTable.getStudentAttendanceForOffering"));
+      stmt.setInt(1, studentId);
+      stmt.setInt(2, offeringId);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          if (sessions.isEmpty()) {
+            total = rs.getInt("total_sessions");
+            present = rs.getInt("present_count");
+            absent = rs.getInt("absent_count");
+          }
+          Date date = rs.getDate("date");
+          sessions.add(new SessionAttendance(
+            rs.getInt("id"),
+            date != null ? date.toLocalDate() : null,
+            rs.getString("day_of_week"),
+            rs.getTime("start_time").toLocalTime(),
+            rs.getTime("end_time").toLocalTime(),
+            AttendanceStatus.of(rs.getObject("present", Boolean.class))
+          ));
+        }
+      }
+    }
+    return new StudentAttendanceSummary(sessions, total, present, absent);
+  }
+
   /* * ---------- Retrieve attendance for a specific student (used by Student) ---------- 
    * Renamed from getForStudent to follow getBy...Id convention.
    */
   public List<Attendance> getByStudentId(int studentId) throws SQLException {
     final String sql = "SELECT session_id, student_id, present FROM attendances WHERE student_id = ?";
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(sql)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("AttendanceTable.getByStudentId"));
       stmt.setInt(1, studentId);
       return fetchList(stmt);
     }
@@ -63,6 +144,7 @@ public class AttendanceTable {
     try (Connection conn = Session.getDatabaseConnection();
       PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("AttendanceTable.get"));
       stmt.setInt(1, sessionId);
       stmt.setInt(2, studentId);
 
@@ -6,15 +6,23 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.khazar.sims.core.Session;
+import com.khazar.sims.database.EntityCache;
+import com.khazar.sims.database.QueryTimeouts;
 
 /**
  * Interface defining the standard Data Access Object (DAO) operations.
  */
 interface DAO<T> {
   T getById(int id) throws SQLException;
+  Map<Integer, T> getByIds(Collection<Integer> ids) throws SQLException;
   T add(T t) throws SQLException;
   void update(T t) throws SQLException;
   void delete(int id) throws SQLException;
@@ -24,13 +32,91 @@ interface DAO<T> {
 /**
  * Abstract base class providing common functionality for all database tables.
  * Subclasses only need to implement map(), getTableName(), add(), and update().
+ * Tables whose rows rarely change can opt into an {@link EntityCache} by passing one to the constructor.
  */
 public abstract class BaseTable<T> implements DAO<T> {
+  /* null when the table is not cached */
+  private final EntityCache<T> cache;
+  private final List<TableListener<T>> listeners = new CopyOnWriteArrayList<>();
 
   /* Methods to be implemented by concrete table classes */
   protected abstract String getTableName();
   protected abstract T map(ResultSet rs) throws SQLException;
 
+  /** Primary key column; tables keyed by something other than 'id' override this. */
+  protected String getIdColumn() { return "id"; }
+
+  /**
+   * Column list used by {@link #getPage} and {@link #forEach}. Tables override it to keep wide or
+   * sensitive columns out of lists and scans; map() must still find every column it reads
+   * (select NULL AS col).
+   */
+  protected String getListColumns() { return "*"; }
+
+  /** An uncached table. */
+  protected BaseTable() {
+    this(null);
+  }
+
+  /**
+   * @param cache the read-through cache used by getById/getByIds/getAll, or null for none
+   */
+  protected BaseTable(EntityCache<T> cache) {
+    this.cache = cache;
+  }
+
+  /** @return cache statistics, or null if this table is not cached */
+  public EntityCache.Stats getCacheStats() {
+    return cache == null ? null : cache.getStats();
+  }
+
+  /**
+   * Drops all cached rows. Writes through this table do it automatically;
+   * call it after changing the table behind its back (e.g. raw SQL elsewhere).
+   */
+  public void invalidateCache() {
+    if (cache != null) cache.invalidateAll();
+  }
+
+  /**
+   * Drops one cached row (and the cached full-table result).
+   */
+  public void invalidateCache(int id) {
+    if (cache != null) cache.invalidate(id);
+  }
+
+  /**
+   * Registers a listener for rows added, updated or deleted through this table.
+   * Writes made with raw SQL elsewhere are not reported.
+   */
+  public final void addListener(TableListener<T> listener) { listeners.add(listener); }
+
+  public void removeListener(TableListener<T> listener) { listeners.remove(listener); }
+
+  /* Subclasses call these after their own add/update succeeded; delete() reports itself */
+  protected void fireAdded(T row) {
+    for (TableListener<T> listener : listeners) listener.onAdded(row);
+  }
+
+  protected void fireUpdated(T row) {
+    for (TableListener<T> listener : listeners) listener.onUpdated(row);
+  }
+
+  protected void fireDeleted(int id) {
+    for (TableListener<T> listener : listeners) listener.onDeleted(id);
+  }
+
+  /** Caches a row loaded by a subclass-specific query (e.g. lookup by email or code). */
+  protected T remember(T row, int id, long generation) {
+    if (cache != null) cache.put(id, row, generation);
+    return row;
+  }
+
+  /** @return the cache generation to pass to {@link #remember}, or 0 if not cached */
+  protected long cacheGeneration() {
+    return cache == null ? 0 : cache.generation();
+  }
+
   /**
    * Functional interface for setting parameters on a PreparedStatement.
    */
@@ -41,38 +127,167 @@ public abstract class BaseTable<T> implements DAO<T> {
 
   /* ---------------------- READ OPERATIONS ---------------------- */
 
+  /**
+   * Timeout for one of the inherited DAO methods, keyed by the concrete table
+   * (e.g. UserTable.getById), see {@link QueryTimeouts}.
+   */
+  protected int queryTimeout(String method) {
+    return QueryTimeouts.forMethod(getClass().getSimpleName() + "." + method);
+  }
+
   @Override
   public T getById(int id) throws SQLException {
-    String sql = "SELECT * FROM " + getTableName() + " WHERE id = ?";
+    if (cache != null) {
+      T cached = cache.get(id);
+      if (cached != null) return cached;
+    }
+
+    long generation = cacheGeneration();
+    String sql = "SELECT * FROM " + getTableName() + " WHERE " + getIdColumn() + " = ?";
     
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(queryTimeout("getById"));
       ps.setInt(1, id);
 
       try (ResultSet rs = ps.executeQuery()) {
         /* Maps the first result found, or returns null if none found */
-        return rs.next() ? map(rs) : null;
+        return rs.next() ? remember(map(rs), id, generation) : null;
       }
     }
   }
 
+  /**
+   * Loads many rows by primary key in a handful of round trips.
+   * Duplicate keys are collapsed and keys with no matching row are simply absent from the result.
+   * @param ids The primary keys to look up.
+   * @return The rows found, keyed by primary key.
+   */
+  @Override
+  public Map<Integer, T> getByIds(Collection<Integer> ids) throws SQLException {
+    Map<Integer, T> result = new HashMap<>();
+    if (ids.isEmpty())
+      return result;
+
+    /* Serve what we can from the cache and only query the rest */
+    List<Integer> missing = new ArrayList<>(ids.size());
+    for (Integer id : ids) {
+      T cached = (cache != null && id != null) ? cache.get(id) : null;
+      if (cached != null)
+        result.put(id, cached);
+      else
+        missing.add(id);
+    }
+    if (missing.isEmpty())
+      return result;
+
+    long generation = cacheGeneration();
+    try (Connection conn = Session.getDatabaseConnection()) {
+      for (List<Integer> chunk : InClause.chunks(missing)) {
+        String sql = "SELECT * FROM " + getTableName() + " WHERE " + getIdColumn()
+          + " IN (" + InClause.placeholders(chunk) + ")";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+          ps.setQueryTimeout(queryTimeout("getByIds"));
+          InClause.bind(ps, 1, chunk);
+
+          try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+              int id = rs.getInt(getIdColumn());
+              result.put(id, remember(map(rs), id, generation));
+            }
+          }
+        }
+      }
+    }
+
+    return result;
+  }
+
   @Override
   public List<T> getAll() throws SQLException {
+    if (cache != null) {
+      List<T> cached = cache.getAll();
+      if (cached != null) return cached;
+    }
+
+    long generation = cacheGeneration();
     String sql = "SELECT * FROM " + getTableName();
     List<T> list = new ArrayList<>();
+    Map<Integer, T> byId = cache != null ? new LinkedHashMap<>() : null;
     
-    Connection conn = Session.getDatabaseConnection();
-    try (Statement stmt = conn.createStatement();
-          ResultSet rs = stmt.executeQuery(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(queryTimeout("getAll"));
 
-      while (rs.next()) {
-        list.add(map(rs));
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          T row = map(rs);
+          list.add(row);
+          if (byId != null) byId.put(rs.getInt(getIdColumn()), row);
+        }
       }
     }
 
+    if (cache != null) cache.putAll(byId, generation);
     return list;
   }
 
+  /**
+   * Keyset (seek) pagination: the next {@code limit} rows after {@code afterId} in primary key order.
+   * The primary key index is used for both the seek and the order, so a deep page costs
+   * the same as the first one, unlike OFFSET. Page rows are not cached.
+   * @param afterId The key of the last row of the previous page; 0 for the first page.
+   * @param limit Maximum number of rows to return.
+   * @return Up to {@code limit} rows; fewer means the end was reached.
+   */
+  public List<T> getPage(int afterId, int limit) throws SQLException {
+    String sql = "SELECT " + getListColumns() + " FROM " + getTableName()
+      + " WHERE " + getIdColumn() + " > ? ORDER BY " + getIdColumn() + " LIMIT ?";
+    List<T> page = new ArrayList<>(limit);
+
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(queryTimeout("getPage"));
+      ps.setInt(1, afterId);
+      ps.setInt(2, limit);
+
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          page.add(map(rs));
+        }
+      }
+    }
+    return page;
+  }
+
+  /**
+   * @return The number of rows in the table; pairs with {@link #getPage} for "x of y" displays.
+   */
+  public int count() throws SQLException {
+    String sql = "SELECT COUNT(*) FROM " + getTableName();
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(queryTimeout("count"));
+
+      try (ResultSet rs = ps.executeQuery()) {
+        return rs.next() ? rs.getInt(1) : 0;
+      }
+    }
+  }
+
+  /**
+   * Streams every row of the table to the visitor in primary key order, in constant memory.
+   * Meant for exports, reports and bulk recomputations over large tables; screens should keep
+   * using getAll(). Bypasses the cache.
+   * @param visitor Receives each row as it is read.
+   * @return The number of rows visited.
+   */
+  public long forEach(RowVisitor<? super T> visitor) throws SQLException {
+    String sql = "SELECT " + getListColumns() + " FROM " + getTableName() + " ORDER BY " + getIdColumn();
+    return Cursor.forEach(queryTimeout("forEach"), sql, ps -> {}, this::map, visitor);
+  }
+
   /* ---------------------- WRITE OPERATIONS ---------------------- */
   
   /* Required methods from the DAO interface for specific table implementation */
@@ -84,9 +299,10 @@ public abstract class BaseTable<T> implements DAO<T> {
 
   @Override
   public void delete(int id) throws SQLException {
-    String sql = "DELETE FROM " + getTableName() + " WHERE id = ?";
+    String sql = "DELETE FROM " + getTableName() + " WHERE " + getIdColumn() + " = ?";
     /* Executes the DELETE statement, setting the ID parameter */
-    executeUpdate(sql, ps -> ps.setInt(1, id));
+    executeUpdate(id, sql, ps -> ps.setInt(1, id));
+    fireDeleted(id);
   }
   
   /* ---------------------- SQL EXECUTION HELPERS ---------------------- */
@@ -99,17 +315,21 @@ public abstract class BaseTable<T> implements DAO<T> {
    * @throws SQLException if the insert fails or no key is generated.
    */
   protected int executeInsert(String sql, Params params) throws SQLException {
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
       params.fill(ps);
       ps.executeUpdate();
 
       try (ResultSet keys = ps.getGeneratedKeys()) {
-        if (keys.next())
-          return keys.getInt(1);
-        else
+        if (!keys.next()) {
+          invalidateCache();
           throw new SQLException("Insert failed, no generated key obtained.");
+        }
+        int id = keys.getInt(1);
+        /* Only the full-table result can contain the new row */
+        invalidateCache(id);
+        return id;
       }
     }
   }
@@ -121,10 +341,28 @@ public abstract class BaseTable<T> implements DAO<T> {
    * @throws SQLException if the execution fails.
    */
   protected void executeUpdate(String sql, Params params) throws SQLException {
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      params.fill(ps);
+      ps.executeUpdate();
+      invalidateCache();
+    }
+  }
+
+  /**
+   * Executes an UPDATE or DELETE statement that changes only the row with this id,
+   * so only that row is dropped from the cache.
+   * @param id The primary key of the row written.
+   * @param sql The SQL UPDATE or DELETE statement.
+   * @param params A Params function to fill the PreparedStatement parameters.
+   * @throws SQLException if the execution fails.
+   */
+  protected void executeUpdate(int id, String sql, Params params) throws SQLException {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
       params.fill(ps);
       ps.executeUpdate();
+      invalidateCache(id);
     }
   }
 }
\ No newline at end of file
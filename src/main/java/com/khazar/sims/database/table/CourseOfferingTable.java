@@ -1,8 +1,10 @@
 package com.khazar.sims.database.table;
 
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.CourseOffering;
 import com.khazar.sims.core.Session;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.PreparedStatement;
@@ -97,7 +99,9 @@ public class CourseOfferingTable extends BaseTable<CourseOffering> {
 
     List<CourseOffering> list = new ArrayList<>();
 
-    try (PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("CourseOfferingTable.getByTeacherId"));
       ps.setInt(1, teacherId);
 
       try (ResultSet rs = ps.executeQuery()) {
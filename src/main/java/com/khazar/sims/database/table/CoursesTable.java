@@ -1,18 +1,36 @@
 package com.khazar.sims.database.table;
 
 import com.khazar.sims.core.Session;
+import com.khazar.sims.database.CodeIndex;
+import com.khazar.sims.database.EntityCache;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.Course;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CoursesTable {
+  private static final int CACHE_SIZE = 5_000;
+  private static final long CACHE_TTL_MS = 30 * 60_000;
+
+  /* Read-through cache for getById/getByIds/getAll; add/update/delete drop the row they write */
+  private final EntityCache<Course> cache = new EntityCache<>("courses", CACHE_SIZE, CACHE_TTL_MS, Course::new);
+
+  /* Course codes for getByCode and autocomplete; filled by loadCodes(), then kept current by add/update/delete */
+  private final CodeIndex<Course> codes = new CodeIndex<>(Course::getId, Course::getCode);
+
+  public EntityCache.Stats getCacheStats() { return cache.getStats(); }
+
   /* ---------- Add a new course ---------- */
   public void add(Course course) throws SQLException {
     final String sql = "INSERT INTO courses(code, name, credits, department_id) VALUES (?, ?, ?, ?)";
-    try (PreparedStatement statement = Session.getDatabaseConnection()
-        .prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
       statement.setString(1, course.getCode());
       statement.setString(2, course.getName());
@@ -23,54 +41,161 @@ public class CoursesTable {
       try (ResultSet rs = statement.getGeneratedKeys()) {
         if (rs.next()) course.setId(rs.getInt(1));
       }
+      /* Only the full-table result can contain the new course */
+      cache.invalidate(course.getId());
     }
+    codes.put(course);
   }
 
   /* ---------- Retrieve a course by ID ---------- */
   public Course getById(int id) throws SQLException {
+    Course cached = cache.get(id);
+    if (cached != null) return cached;
+
+    long generation = cache.generation();
     final String sql = "SELECT id, code, name, credits, department_id FROM courses WHERE id = ?";
-    try (PreparedStatement statement = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(sql)) {
+      statement.setQueryTimeout(QueryTimeouts.forMethod("CoursesTable.getById"));
       statement.setInt(1, id);
       try (ResultSet rs = statement.executeQuery()) {
         if (rs.next()) {
-          return new Course(
+          Course course = new Course(
               rs.getInt("id"),
               rs.getString("code"),
               rs.getString("name"),
               rs.getInt("credits"),
               rs.getInt("department_id")
           );
+          cache.put(id, course, generation);
+          return course;
         }
       }
     }
     return null;
   }
 
+  /* ---------- Retrieve many courses by ID, chunked into IN lists ---------- */
+  public Map<Integer, Course> getByIds(Collection<Integer> ids) throws SQLException {
+    Map<Integer, Course> courses = new HashMap<>();
+    if (ids.isEmpty()) return courses;
+
+    List<Integer> missing = new ArrayList<>(ids.size());
+    for (Integer id : ids) {
+      Course cached = id != null ? cache.get(id) : null;
+      if (cached != null) courses.put(id, cached);
+      else missing.add(id);
+    }
+    if (missing.isEmpty()) return courses;
+
+    long generation = cache.generation();
+    try (Connection conn = Session.getDatabaseConnection()) {
+      for (List<Integer> chunk : InClause.chunks(missing)) {
+        final String sql = "SELECT id, code, name, credits, department_id FROM courses WHERE id IN ("
+          + InClause.placeholders(chunk) + ")";
+        try (PreparedStatement statement = conn.prepareStatement(sql)) {
+          statement.setQueryTimeout(QueryTimeouts.forMethod("CoursesTable.getByIds"));
+          InClause.bind(statement, 1, chunk);
+          try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+              Course course = new Course(
+                  rs.getInt("id"),
+                  rs.getString("code"),
+                  rs.getString("name"),
+                  rs.getInt("credits"),
+                  rs.getInt("department_id")
+              );
+              courses.put(course.getId(), course);
+              cache.put(course.getId(), course, generation);
+            }
+          }
+        }
+      }
+    }
+    return courses;
+  }
+
   /* ---------- Retrieve all courses ---------- */
   public List<Course> getAll() throws SQLException {
-    List<Course> courses = new ArrayList<>();
+    List<Course> cached = cache.getAll();
+    if (cached != null) return cached;
+
+    long generation = cache.generation();
+    Map<Integer, Course> courses = readAll();
+    cache.putAll(courses, generation);
+    return new ArrayList<>(courses.values());
+  }
+
+  /* Every course straight from the table, bypassing the cache */
+  private Map<Integer, Course> readAll() throws SQLException {
+    Map<Integer, Course> courses = new LinkedHashMap<>();
     final String sql = "SELECT id, code, name, credits, department_id FROM courses";
-    try (Statement statement = Session.getDatabaseConnection().createStatement();
-       ResultSet rs = statement.executeQuery(sql)) {
-
-      while (rs.next()) {
-        courses.add(new Course(
-            rs.getInt("id"),
-            rs.getString("code"),
-            rs.getString("name"),
-            rs.getInt("credits"),
-            rs.getInt("department_id")
-        ));
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("CoursesTable.getAll"));
+
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          Course course = new Course(
+              rs.getInt("id"),
+              rs.getString("code"),
+              rs.getString("name"),
+              rs.getInt("credits"),
+              rs.getInt("department_id")
+          );
+          courses.put(course.getId(), course);
+        }
       }
     }
     return courses;
   }
 
+  /* ---------- Retrieve a course by code; from memory when indexed, misses confirmed by a query ---------- */
+  public Course getByCode(String code) throws SQLException {
+    Course indexed = codes.get(code);
+    if (indexed != null) return indexed;
+
+    long generation = cache.generation();
+    final String sql = "SELECT id, code, name, credits, department_id FROM courses WHERE code = ?";
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(sql)) {
+      statement.setQueryTimeout(QueryTimeouts.forMethod("CoursesTable.getByCode"));
+      statement.setString(1, code);
+      try (ResultSet rs = statement.executeQuery()) {
+        if (rs.next()) {
+          Course course = new Course(
+              rs.getInt("id"),
+              rs.getString("code"),
+              rs.getString("name"),
+              rs.getInt("credits"),
+              rs.getInt("department_id")
+          );
+          cache.put(course.getId(), course, generation);
+          if (codes.isLoaded()) codes.put(course);
+          return course;
+        }
+      }
+    }
+    return null;
+  }
+
+  /* ---------- Load every course code into memory, from the table rather than the cache ---------- */
+  public void loadCodes() throws SQLException {
+    codes.load(() -> readAll().values());
+  }
+
+  /* ---------- Courses whose code starts with the prefix, from memory (empty before loadCodes) ---------- */
+  public List<Course> completeCode(String prefix, int limit) {
+    return codes.complete(prefix, limit);
+  }
+
   /* ---------- Retrieve courses for a specific department ---------- */
   public List<Course> getCoursesForDepartment(int departmentId) throws SQLException {
     List<Course> courses = new ArrayList<>();
     final String sql = "SELECT id, code, name, credits, department_id FROM courses WHERE department_id = ?";
-    try (PreparedStatement statement = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(sql)) {
+      statement.setQueryTimeout(QueryTimeouts.forMethod("CoursesTable.getCoursesForDepartment"));
       statement.setInt(1, departmentId);
       try (ResultSet rs = statement.executeQuery()) {
         while (rs.next()) {
@@ -96,7 +221,9 @@ public class CoursesTable {
         JOIN course_offerings co ON c.id = co.course_id
         WHERE co.teacher_id = ?
         """;
-    try (PreparedStatement statement = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(sql)) {
+      statement.setQueryTimeout(QueryTimeouts.forMethod("CoursesTable.getCoursesForTeacher"));
       statement.setInt(1, teacherId);
       try (ResultSet rs = statement.executeQuery()) {
         while (rs.next()) {
@@ -116,22 +243,28 @@ public class CoursesTable {
   /* ---------- Update an existing course ---------- */
   public void update(Course course) throws SQLException {
     final String sql = "UPDATE courses SET code = ?, name = ?, credits = ?, department_id = ? WHERE id = ?";
-    try (PreparedStatement statement = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(sql)) {
       statement.setString(1, course.getCode());
       statement.setString(2, course.getName());
       statement.setInt(3, course.getCredits());
       statement.setInt(4, course.getDepartmentId());
       statement.setInt(5, course.getId());
       statement.executeUpdate();
+      cache.invalidate(course.getId());
     }
+    codes.put(course);
   }
 
   /* ---------- Delete a course by ID ---------- */
   public void delete(int id) throws SQLException {
     final String sql = "DELETE FROM courses WHERE id = ?";
-    try (PreparedStatement statement = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(sql)) {
       statement.setInt(1, id);
       statement.executeUpdate();
+      cache.invalidate(id);
     }
+    codes.remove(id);
   }
 }
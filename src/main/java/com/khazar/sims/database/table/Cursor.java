@@ -0,0 +1,53 @@
+package com.khazar.sims.database.table;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.khazar.sims.core.Session;
+import com.khazar.sims.database.Database;
+
+/**
+ * Runs a query through a server-side cursor and hands each row to a {@link RowVisitor}.
+ *
+ * The statement gets the configured fetch size (db.fetchSize), which with useCursorFetch makes
+ * Connector/J pull the result in batches instead of buffering all of it. Only the current row
+ * is ever mapped, so memory use does not grow with the result.
+ */
+final class Cursor {
+
+  private Cursor() {}
+
+  /**
+   * Maps the current row of a result set.
+   */
+  @FunctionalInterface
+  interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+  }
+
+  /**
+   * @param timeout the calling DAO method's query timeout, in seconds
+   * @return the number of rows visited
+   */
+  static <T> long forEach(int timeout, String sql, BaseTable.Params params, RowMapper<T> mapper,
+                          RowVisitor<? super T> visitor) throws SQLException {
+    long count = 0;
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+
+      ps.setQueryTimeout(timeout);
+      ps.setFetchSize(Database.getFetchSize());
+      params.fill(ps);
+
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          visitor.visit(mapper.map(rs));
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+}
@@ -1,15 +1,37 @@
 package com.khazar.sims.database.table;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import com.khazar.sims.database.CodeIndex;
+import com.khazar.sims.database.EntityCache;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.Department;
 import com.khazar.sims.core.Session;
 
+import java.util.Collection;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
-public class DepartmentTable extends BaseTable<Department> {
+public final class DepartmentTable extends BaseTable<Department> {
+
+  private static final int CACHE_SIZE = 1_000;
+  private static final long CACHE_TTL_MS = 30 * 60_000;
+
+  /*
+   * Codes for getByCode and autocomplete, per faculty (codes are unique within a faculty);
+   * filled by loadCodes(), then kept current by add/update/delete
+   */
+  private final CodeIndex<Department> codes =
+    new CodeIndex<>(Department::getId, Department::getFacultyId, Department::getCode);
+
+  public DepartmentTable() {
+    super(new EntityCache<>("departments", CACHE_SIZE, CACHE_TTL_MS, Department::new));
+    addListener(codes);
+  }
 
   @Override
   protected String getTableName() { 
@@ -38,6 +60,7 @@ public class DepartmentTable extends BaseTable<Department> {
     );
 
     department.setId(generatedId);
+    fireAdded(department);
     return department;
   }
 
@@ -46,6 +69,11 @@ public class DepartmentTable extends BaseTable<Department> {
     return super.getById(id); 
   }
 
+  @Override
+  public Map<Integer, Department> getByIds(Collection<Integer> ids) throws SQLException {
+    return super.getByIds(ids);
+  }
+
   @Override
   public List<Department> getAll() throws SQLException { 
     return super.getAll(); 
@@ -54,6 +82,7 @@ public class DepartmentTable extends BaseTable<Department> {
   @Override
   public void update(Department department) throws SQLException {
     executeUpdate(
+      department.getId(),
       "UPDATE departments SET name = ?, code = ? WHERE id = ?",
       ps -> {
         ps.setString(1, department.getName());
@@ -61,6 +90,7 @@ public class DepartmentTable extends BaseTable<Department> {
         ps.setInt(3, department.getId());
       }
     );
+    fireUpdated(department);
   }
 
   @Override
@@ -70,25 +100,71 @@ public class DepartmentTable extends BaseTable<Department> {
 
   public Department getByName(String name) throws SQLException {
     final String sql = "SELECT * FROM departments WHERE name = ?";
+    long generation = cacheGeneration();
 
-    try (PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("DepartmentTable.getByName"));
       ps.setString(1, name);
 
       try (ResultSet rs = ps.executeQuery()) {
-        return rs.next() ? map(rs) : null;
+        return rs.next() ? remember(map(rs), rs.getInt("id"), generation) : null;
       }
     }
   }
 
-  public Department getByCode(String code) throws SQLException {
-    final String sql = "SELECT * FROM departments WHERE code = ?";
+  /**
+   * Looks a department up by its code within a faculty. Answered from memory when the code
+   * index has it; misses are confirmed by a query, since other clients may have added it.
+   */
+  public Department getByCode(int facultyId, String code) throws SQLException {
+    Department indexed = codes.get(facultyId, code);
+    if (indexed != null)
+      return indexed;
 
-    try (PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql)) {
-      ps.setString(1, code);
+    final String sql = "SELECT * FROM departments WHERE faculty_id = ? AND code = ?";
+    long generation = cacheGeneration();
+
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("DepartmentTable.getByCode"));
+      ps.setInt(1, facultyId);
+      ps.setString(2, code);
 
       try (ResultSet rs = ps.executeQuery()) {
-        return rs.next() ? map(rs) : null;
+        if (!rs.next())
+          return null;
+        Department department = remember(map(rs), rs.getInt("id"), generation);
+        if (codes.isLoaded()) codes.put(department);
+        return department;
       }
     }
   }
+
+  /**
+   * Loads every department code into memory, for getByCode and completeCode.
+   */
+  public void loadCodes() throws SQLException {
+    /* Streams from the table: a cached getAll() would hide changes made by other clients */
+    codes.load(() -> {
+      List<Department> all = new ArrayList<>();
+      forEach(all::add);
+      return all;
+    });
+  }
+
+  /**
+   * @return departments of any faculty whose code starts with the prefix, from memory
+   *         (empty before loadCodes)
+   */
+  public List<Department> completeCode(String prefix, int limit) {
+    return codes.complete(prefix, limit);
+  }
+
+  /**
+   * @return departments of the faculty whose code starts with the prefix, from memory
+   */
+  public List<Department> completeCode(int facultyId, String prefix, int limit) {
+    return codes.complete(facultyId, prefix, limit);
+  }
 }
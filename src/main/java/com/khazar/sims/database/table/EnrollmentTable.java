@@ -1,14 +1,19 @@
 package com.khazar.sims.database.table;
 
 import com.khazar.sims.core.Session;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.Enrollment;
+import com.khazar.sims.database.data.RosterEntry;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Handles operations related to the 'enrollments' table.
@@ -18,6 +23,25 @@ import java.util.List;
  */
 public class EnrollmentTable {
 
+  /**
+   * Sort orders supported by {@link #getRoster}. Only these column lists ever reach the SQL text.
+   */
+  public enum RosterSort {
+    LAST_NAME("u.last_name %1$s, u.first_name %1$s"),
+    FIRST_NAME("u.first_name %1$s, u.last_name %1$s"),
+    EMAIL("u.email %1$s"),
+    DEPARTMENT("d.name %1$s, u.last_name %1$s, u.first_name %1$s"),
+    STUDENT_ID("e.student_id %1$s");
+
+    private final String orderBy;
+
+    RosterSort(String orderBy) { this.orderBy = orderBy; }
+
+    String orderBy(boolean ascending) {
+      return String.format(orderBy, ascending ? "ASC" : "DESC");
+    }
+  }
+
   /**
    * Get all enrollments for a specific course offering.
    * Joins with users table to get student names.
@@ -39,8 +63,9 @@ public class EnrollmentTable {
       ORDER BY u.last_name, u.first_name
       """;
     List<Enrollment> enrollments = new ArrayList<>();
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.getByOfferingId"));
       stmt.setInt(1, offeringId);
       try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
@@ -61,6 +86,67 @@ public class EnrollmentTable {
     return enrollments;
   }
 
+  /**
+   * Get the roster of a course offering in one query: student id, names, email and department name.
+   * Sorting happens on the server; the student id is always the final tie-breaker so the order is stable.
+   *
+   * @param offeringId The course offering ID
+   * @param sort Column to sort by
+   * @param ascending Sort direction
+   * @return Roster rows in the requested order
+   */
+  public List<RosterEntry> getRoster(int offeringId, RosterSort sort, boolean ascending) throws SQLException {
+    String query = """
+      SELECT
+        e.student_id,
+        e.final_grade,
+        u.first_name,
+        u.last_name,
+        u.email,
+        d.name AS department_name
+      FROM enrollments e
+      JOIN users u ON e.student_id = u.id
+      JOIN students s ON s.user_id = e.student_id
+      LEFT JOIN departments d ON d.id = s.department_id
+      WHERE e.offering_id = ?
+      ORDER BY %s, e.student_id
+      """.formatted(sort.orderBy(ascending));
+
+    List<RosterEntry> roster = new ArrayList<>();
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.getRoster"));
+      stmt.setInt(1, offeringId);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          Double finalGrade = rs.getDouble("final_grade");
+          if (rs.wasNull()) {
+            finalGrade = null;
+          }
+          roster.add(new RosterEntry(
+            rs.getInt("student_id"),
+            rs.getString("first_name"),
+            rs.getString("last_name"),
+            rs.getString("email"),
+            rs.getString("department_name"),
+            finalGrade
+          ));
+        }
+      }
+    }
+    return roster;
+  }
+
+  /**
+   * Get the full roster of a course offering sorted by last name.
+   *
+   * @param offeringId The course offering ID
+   * @return All roster rows
+   */
+  public List<RosterEntry> getRoster(int offeringId) throws SQLException {
+    return getRoster(offeringId, RosterSort.LAST_NAME, true);
+  }
+
   /**
    * Get all enrollments for a specific student.
    *
@@ -81,8 +167,9 @@ public class EnrollmentTable {
       ORDER BY e.offering_id
       """;
     List<Enrollment> enrollments = new ArrayList<>();
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.getByStudentId"));
       stmt.setInt(1, studentUserId);
       try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
@@ -114,8 +201,8 @@ public class EnrollmentTable {
       INSERT INTO enrollments (offering_id, student_id, final_grade)
       VALUES (?, ?, NULL)
       """;
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
       stmt.setInt(1, offeringId);
       stmt.setInt(2, studentUserId);
       stmt.executeUpdate();
@@ -130,8 +217,8 @@ public class EnrollmentTable {
    */
   public void unenroll(int offeringId, int studentUserId) throws SQLException {
     String query = "DELETE FROM enrollments WHERE offering_id = ? AND student_id = ?";
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
       stmt.setInt(1, offeringId);
       stmt.setInt(2, studentUserId);
       stmt.executeUpdate();
@@ -151,8 +238,8 @@ public class EnrollmentTable {
       SET final_grade = ? 
       WHERE offering_id = ? AND student_id = ?
       """;
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
       if (finalGrade != null) {
         stmt.setDouble(1, finalGrade);
       }
@@ -184,8 +271,9 @@ public class EnrollmentTable {
       JOIN users u ON e.student_id = u.id
       WHERE e.offering_id = ? AND e.student_id = ?
       """;
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.get"));
       stmt.setInt(1, offeringId);
       stmt.setInt(2, studentUserId);
       try (ResultSet rs = stmt.executeQuery()) {
@@ -216,8 +304,9 @@ public class EnrollmentTable {
    */
   public boolean isEnrolled(int offeringId, int studentUserId) throws SQLException {
     String query = "SELECT 1 FROM enrollments WHERE offering_id = ? AND student_id = ? LIMIT 1";
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.isEnrolled"));
       stmt.setInt(1, offeringId);
       stmt.setInt(2, studentUserId);
       try (ResultSet rs = stmt.executeQuery()) {
@@ -234,8 +323,9 @@ public class EnrollmentTable {
    */
   public int getEnrollmentCount(int offeringId) throws SQLException {
     String query = "SELECT COUNT(*) as count FROM enrollments WHERE offering_id = ?";
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.getEnrollmentCount"));
       stmt.setInt(1, offeringId);
       try (ResultSet rs = stmt.executeQuery()) {
         if (rs.next()) {
@@ -246,8 +336,73 @@ public class EnrollmentTable {
     return 0;
   }
 
+  /**
+   * Get the number of enrolled students for many offerings with one GROUP BY per chunk of ids.
+   * Offerings without enrollments are absent from the map; use getOrDefault(id, 0).
+   *
+   * @param offeringIds The course offering IDs
+   * @return Map of offering ID to enrollment count
+   */
+  public Map<Integer, Integer> getEnrollmentCounts(Collection<Integer> offeringIds) throws SQLException {
+    Map<Integer, Integer> counts = new HashMap<>();
+    if (offeringIds.isEmpty()) {
+      return counts;
+    }
+
+    try (Connection conn = Session.getDatabaseConnection()) {
+      for (List<Integer> chunk : InClause.chunks(offeringIds)) {
+        String query = """
+          SELECT offering_id, COUNT(*) AS count
+          FROM enrollments
+          WHERE offering_id IN (%s)
+          GROUP BY offering_id
+          """.formatted(InClause.placeholders(chunk));
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+          stmt.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.getEnrollmentCounts"));
+          InClause.bind(stmt, 1, chunk);
+          try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+              counts.put(rs.getInt("offering_id"), rs.getInt("count"));
+            }
+          }
+        }
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Get the number of enrolled students for every offering taught by a teacher.
+   * Offerings without enrollments are included with a count of 0.
+   *
+   * @param teacherId The teacher's user id
+   * @return Map of offering ID to enrollment count
+   */
+  public Map<Integer, Integer> getEnrollmentCountsForTeacher(int teacherId) throws SQLException {
+    String query = """
+      SELECT co.id AS offering_id, COUNT(e.student_id) AS count
+      FROM course_offerings co
+      LEFT JOIN enrollments e ON e.offering_id = co.id
+      WHERE co.teacher_id = ?
+      GROUP BY co.id
+      """;
+    Map<Integer, Integer> counts = new HashMap<>();
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.getEnrollmentCountsForTeacher"));
+      stmt.setInt(1, teacherId);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          counts.put(rs.getInt("offering_id"), rs.getInt("count"));
+        }
+      }
+    }
+    return counts;
+  }
+
   /**
    * Get all enrollments (for admin purposes).
+   * Buffers the whole table; see {@link #forEach} for large reads.
    *
    * @return List of all enrollments
    */
@@ -264,8 +419,9 @@ public class EnrollmentTable {
       ORDER BY e.offering_id, u.last_name, u.first_name
       """;
     List<Enrollment> enrollments = new ArrayList<>();
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
+      stmt.setQueryTimeout(QueryTimeouts.forMethod("EnrollmentTable.getAll"));
       try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
           Double finalGrade = rs.getDouble("final_grade");
@@ -286,6 +442,39 @@ public class EnrollmentTable {
     return enrollments;
   }
 
+  /**
+   * Streams all enrollments with student names to the visitor, in the same order as getAll(),
+   * without buffering them. Use it for exports and bulk recomputations.
+   *
+   * @return The number of enrollments visited
+   */
+  public long forEach(RowVisitor<? super Enrollment> visitor) throws SQLException {
+    String query = """
+      SELECT
+        e.offering_id,
+        e.student_id,
+        e.final_grade,
+        u.first_name,
+        u.last_name
+      FROM enrollments e
+      JOIN users u ON e.student_id = u.id
+      ORDER BY e.offering_id, u.last_name, u.first_name
+      """;
+    return Cursor.forEach(QueryTimeouts.forMethod("EnrollmentTable.forEach"), query, ps -> {}, rs -> {
+      Double finalGrade = rs.getDouble("final_grade");
+      if (rs.wasNull()) {
+        finalGrade = null;
+      }
+      return new Enrollment(
+        rs.getInt("student_id"),
+        rs.getInt("offering_id"),
+        rs.getString("first_name"),
+        rs.getString("last_name"),
+        finalGrade
+      );
+    }, visitor);
+  }
+
   /**
    * Batch enroll multiple students in a course offering.
    *
@@ -297,8 +486,8 @@ public class EnrollmentTable {
       INSERT INTO enrollments (offering_id, student_id, final_grade)
       VALUES (?, ?, NULL)
       """;
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
       for (int studentUserId : studentUserIds) {
         stmt.setInt(1, offeringId);
         stmt.setInt(2, studentUserId);
@@ -315,8 +504,8 @@ public class EnrollmentTable {
    */
   public void deleteByOfferingId(int offeringId) throws SQLException {
     String query = "DELETE FROM enrollments WHERE offering_id = ?";
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
       stmt.setInt(1, offeringId);
       stmt.executeUpdate();
     }
@@ -329,8 +518,8 @@ public class EnrollmentTable {
    */
   public void deleteByStudentId(int studentUserId) throws SQLException {
     String query = "DELETE FROM enrollments WHERE student_id = ?";
-    Connection conn = Session.getDatabaseConnection();
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement stmt = conn.prepareStatement(query)) {
       stmt.setInt(1, studentUserId);
       stmt.executeUpdate();
     }
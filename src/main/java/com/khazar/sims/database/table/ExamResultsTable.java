@@ -8,15 +8,11 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.khazar.sims.core.Session;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.ExamResult;
 
 public class ExamResultsTable {
-  private final Connection connection;
-
-  public ExamResultsTable(Connection connection) {
-    this.connection = connection;
-  }
-  
   /**
    * Retrieves exam results for all students in a given course offering and exam date.
    * Joins exam_results, students, users, and exams.
@@ -37,7 +33,9 @@ public class ExamResultsTable {
       ORDER BY u.last_name, u.first_name
     """;
     
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(query)) {
+      statement.setQueryTimeout(QueryTimeouts.forMethod("ExamResultsTable.getResultsByOfferingAndExamDate"));
       statement.setInt(1, offeringId);
       statement.setDate(2, examDate);
       
@@ -74,7 +72,8 @@ public class ExamResultsTable {
     String updateQuery = "UPDATE exam_results SET score = ? WHERE offering_id = ? AND student_id = ? AND exam_date = ?";
     String insertQuery = "INSERT INTO exam_results (offering_id, student_id, exam_date, score) VALUES (?, ?, ?, ?)";
 
-    try (PreparedStatement updateStmt = connection.prepareStatement(updateQuery)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
       updateStmt.setDouble(1, result.getScore());
       updateStmt.setInt(2, result.getCourseOfferingId());
       updateStmt.setInt(3, result.getStudentId());
@@ -84,7 +83,7 @@ public class ExamResultsTable {
 
       if (rowsAffected == 0) {
         // No update performed, so insert
-        try (PreparedStatement insertStmt = connection.prepareStatement(insertQuery)) {
+        try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
           insertStmt.setInt(1, result.getCourseOfferingId());
           insertStmt.setInt(2, result.getStudentId());
           insertStmt.setDate(3, result.getExamDate());
@@ -7,15 +7,11 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.khazar.sims.core.Session;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.Exam;
 
 public class ExamsTable {
-  private final Connection connection;
-
-  public ExamsTable(Connection connection) {
-    this.connection = connection;
-  }
-  
   /**
    * Adds a new exam record.
    * Note: The 'type' is not in the schema, but is inferred here for clarity in the UI. 
@@ -26,7 +22,8 @@ public class ExamsTable {
       INSERT INTO exams (offering_id, exam_date, max_score) 
       VALUES (?, ?, ?)
     """;
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(query)) {
       statement.setInt(1, exam.getCourseOfferingId());
       statement.setDate(2, exam.getExamDate());
       // Using exam.getType() as a placeholder for display name if we had a dedicated field,
@@ -47,7 +44,9 @@ public class ExamsTable {
     // Note: For now, we use a placeholder for 'type' as it's not in the schema.
     String query = "SELECT offering_id, exam_date, max_score FROM exams WHERE offering_id = ? ORDER BY exam_date DESC";
     
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement statement = conn.prepareStatement(query)) {
+      statement.setQueryTimeout(QueryTimeouts.forMethod("ExamsTable.getByOfferingId"));
       statement.setInt(1, offeringId);
       try (ResultSet rs = statement.executeQuery()) {
         while (rs.next()) {
@@ -1,16 +1,33 @@
 package com.khazar.sims.database.table;
 
 import com.khazar.sims.core.Session;
+import com.khazar.sims.database.CodeIndex;
+import com.khazar.sims.database.EntityCache;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.Faculty;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Handles database access for the 'faculties' table.
  */
-public class FacultyTable extends BaseTable<Faculty> {
+public final class FacultyTable extends BaseTable<Faculty> {
+  private static final int CACHE_SIZE = 1_000;
+  private static final long CACHE_TTL_MS = 30 * 60_000;
+
+  /* Codes for getByCode and autocomplete; filled by loadCodes(), then kept current by add/update/delete */
+  private final CodeIndex<Faculty> codes = new CodeIndex<>(Faculty::getId, Faculty::getCode);
+
+  public FacultyTable() {
+    super(new EntityCache<>("faculties", CACHE_SIZE, CACHE_TTL_MS, Faculty::new));
+    addListener(codes);
+  }
+
   @Override
   protected String getTableName() {
     return "faculties";
@@ -35,6 +52,7 @@ public class FacultyTable extends BaseTable<Faculty> {
       }
     );
     faculty.setId(generatedId);
+    fireAdded(faculty);
     return faculty;
   }
 
@@ -42,6 +60,7 @@ public class FacultyTable extends BaseTable<Faculty> {
   public void update(Faculty faculty) throws SQLException {
     // Use executeUpdate helper
     executeUpdate(
+      faculty.getId(),
       "UPDATE faculties SET name = ?, code = ? WHERE id = ?",
       ps -> {
         ps.setString(1, faculty.getName());
@@ -49,16 +68,50 @@ public class FacultyTable extends BaseTable<Faculty> {
         ps.setInt(3, faculty.getId());
       }
     );
+    fireUpdated(faculty);
   }
 
   /**
-   * Retrieves a Faculty by its unique code.
+   * Retrieves a Faculty by its unique code. Answered from memory when the code index has it;
+   * misses are confirmed by a query, since other clients may have added it.
    */
   public Faculty getByCode(String code) throws SQLException {
+    Faculty indexed = codes.get(code);
+    if (indexed != null)
+      return indexed;
+
     final String sql = "SELECT * FROM faculties WHERE code = ?";
-    PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql);
-    ps.setString(1, code);
-    ResultSet rs = ps.executeQuery();
-    return rs.next() ? map(rs) : null;
+    long generation = cacheGeneration();
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("FacultyTable.getByCode"));
+      ps.setString(1, code);
+      try (ResultSet rs = ps.executeQuery()) {
+        if (!rs.next())
+          return null;
+        Faculty faculty = remember(map(rs), rs.getInt("id"), generation);
+        if (codes.isLoaded()) codes.put(faculty);
+        return faculty;
+      }
+    }
+  }
+
+  /**
+   * Loads every faculty code into memory, for getByCode and completeCode.
+   */
+  public void loadCodes() throws SQLException {
+    /* Streams from the table: a cached getAll() would hide changes made by other clients */
+    codes.load(() -> {
+      List<Faculty> all = new ArrayList<>();
+      forEach(all::add);
+      return all;
+    });
+  }
+
+  /**
+   * @return faculties whose code starts with the prefix, from memory (empty before loadCodes)
+   */
+  public List<Faculty> completeCode(String prefix, int limit) {
+    return codes.complete(prefix, limit);
   }
-}
\ No newline at end of file
+}
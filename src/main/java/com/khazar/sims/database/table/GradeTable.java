@@ -1,13 +1,19 @@
 package com.khazar.sims.database.table;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.khazar.sims.core.Session;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.Grade;
+import com.khazar.sims.database.data.Gradebook;
 
 public class GradeTable extends BaseTable<Grade> {
 
@@ -42,11 +48,14 @@ public class GradeTable extends BaseTable<Grade> {
     String sql = "SELECT * FROM " + getTableName();
     List<Grade> assessments = new ArrayList<>();
 
-    try (var stmt = Session.getDatabaseConnection().createStatement();
-         ResultSet rs = stmt.executeQuery(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("GradeTable.getAll"));
 
-      while (rs.next()) {
-        assessments.add(map(rs));
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          assessments.add(map(rs));
+        }
       }
     }
 
@@ -107,9 +116,10 @@ public class GradeTable extends BaseTable<Grade> {
 
     List<Grade> assessments = new ArrayList<>();
 
-    try (PreparedStatement ps =
-             Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
 
+      ps.setQueryTimeout(QueryTimeouts.forMethod("GradeTable.getByOfferingAndAssessment"));
       ps.setInt(1, offeringId);
       ps.setString(2, assessmentName);
 
@@ -130,9 +140,10 @@ public class GradeTable extends BaseTable<Grade> {
     String sql = "SELECT * FROM assessments WHERE offering_id = ?";
     List<Grade> assessments = new ArrayList<>();
 
-    try (PreparedStatement ps =
-             Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
 
+      ps.setQueryTimeout(QueryTimeouts.forMethod("GradeTable.getByOfferingId"));
       ps.setInt(1, offeringId);
 
       try (ResultSet rs = ps.executeQuery()) {
@@ -145,6 +156,96 @@ public class GradeTable extends BaseTable<Grade> {
     return assessments;
   }
 
+  /**
+   * Builds the students × assessments matrix of an offering from one query.
+   * Every enrolled student gets a row, even without any score; columns are the offering's
+   * assessment names in alphabetical order.
+   */
+  public Gradebook getGradebook(int offeringId) throws SQLException {
+    final String sql = """
+      SELECT e.student_id, u.first_name, u.last_name, a.assessment_name, a.score, a.max_score
+      FROM enrollments e
+      JOIN users u ON u.id = e.student_id
+      LEFT JOIN assessments a ON a.offering_id = e.offering_id AND a.student_id = e.student_id
+      WHERE e.offering_id = ?
+      ORDER BY u.last_name, u.first_name, e.student_id
+    """;
+
+    /* Rows arrive grouped by student; columns are numbered on first sight and sorted afterwards */
+    List<Integer> studentIds = new ArrayList<>();
+    List<String> studentNames = new ArrayList<>();
+    Map<String, Integer> columns = new HashMap<>();
+    List<Integer> columnMax = new ArrayList<>();
+    /* (row, column, score) triples until the matrix size is known */
+    int[] cells = new int[64 * 3];
+    int cellCount = 0;
+
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+
+      ps.setQueryTimeout(QueryTimeouts.forMethod("GradeTable.getGradebook"));
+      ps.setInt(1, offeringId);
+
+      try (ResultSet rs = ps.executeQuery()) {
+        int lastStudent = -1;
+        while (rs.next()) {
+          int studentId = rs.getInt("student_id");
+          if (studentId != lastStudent) {
+            studentIds.add(studentId);
+            studentNames.add(rs.getString("first_name") + " " + rs.getString("last_name"));
+            lastStudent = studentId;
+          }
+
+          String assessment = rs.getString("assessment_name");
+          if (assessment == null) continue; /* enrolled without any score */
+
+          int maxScore = rs.getInt("max_score");
+          Integer col = columns.get(assessment);
+          if (col == null) {
+            col = columns.size();
+            columns.put(assessment, col);
+            columnMax.add(maxScore);
+          }
+          else if (maxScore > columnMax.get(col)) {
+            columnMax.set(col, maxScore);
+          }
+
+          if (cellCount * 3 + 3 > cells.length) cells = Arrays.copyOf(cells, cells.length * 2);
+          cells[cellCount * 3] = studentIds.size() - 1;
+          cells[cellCount * 3 + 1] = col;
+          cells[cellCount * 3 + 2] = rs.getInt("score");
+          cellCount++;
+        }
+      }
+    }
+
+    /* Alphabetical column order: position[firstSeenIndex] = sortedIndex */
+    String[] names = columns.keySet().toArray(new String[0]);
+    Arrays.sort(names);
+    int[] position = new int[names.length];
+    int[] maxScores = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      int firstSeen = columns.get(names[i]);
+      position[firstSeen] = i;
+      maxScores[i] = columnMax.get(firstSeen);
+    }
+
+    int[] scores = new int[studentIds.size() * names.length];
+    Arrays.fill(scores, Gradebook.MISSING);
+    for (int i = 0; i < cellCount; i++) {
+      scores[cells[i * 3] * names.length + position[cells[i * 3 + 1]]] = cells[i * 3 + 2];
+    }
+
+    return new Gradebook(
+      offeringId,
+      studentIds.stream().mapToInt(Integer::intValue).toArray(),
+      studentNames.toArray(new String[0]),
+      names,
+      maxScores,
+      scores
+    );
+  }
+
   /**
    * Returns all unique assessment names for an offering.
    */
@@ -159,9 +260,10 @@ public class GradeTable extends BaseTable<Grade> {
 
     List<String> names = new ArrayList<>();
 
-    try (PreparedStatement ps =
-             Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
 
+      ps.setQueryTimeout(QueryTimeouts.forMethod("GradeTable.getAssessmentNamesByOffering"));
       ps.setInt(1, offeringId);
 
       try (ResultSet rs = ps.executeQuery()) {
@@ -180,8 +282,8 @@ public class GradeTable extends BaseTable<Grade> {
   private int executeUpdateWithCount(String sql, Params params)
       throws SQLException {
 
-    try (PreparedStatement ps =
-             Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
 
       params.fill(ps);
       return ps.executeUpdate();
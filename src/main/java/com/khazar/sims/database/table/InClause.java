@@ -0,0 +1,85 @@
+package com.khazar.sims.database.table;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Helpers for batched "WHERE col IN (?, ?, ...)" lookups.
+ *
+ * Keys are deduplicated and split into chunks whose placeholder count is rounded up
+ * to a fixed bucket size (the last key is repeated as padding). That way only a few
+ * distinct SQL strings exist per table, and each of them stays in the statement cache.
+ */
+final class InClause {
+  private static final int[] BUCKETS = { 1, 4, 16, 64, 256 };
+  static final int MAX_CHUNK = BUCKETS[BUCKETS.length - 1];
+
+  private InClause() {}
+
+  /**
+   * Splits the distinct, non-null keys into chunks of at most {@link #MAX_CHUNK}.
+   */
+  static <K> List<List<K>> chunks(Collection<K> keys) {
+    List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+    distinct.removeIf(key -> key == null);
+
+    List<List<K>> chunks = new ArrayList<>();
+    for (int from = 0; from < distinct.size(); from += MAX_CHUNK) {
+      chunks.add(distinct.subList(from, Math.min(from + MAX_CHUNK, distinct.size())));
+    }
+    return chunks;
+  }
+
+  /**
+   * @return the bucket size used for a chunk of the given length
+   */
+  static int bucket(int size) {
+    for (int bucket : BUCKETS) {
+      if (size <= bucket)
+        return bucket;
+    }
+    throw new IllegalArgumentException("Chunk larger than " + MAX_CHUNK + ": " + size);
+  }
+
+  /**
+   * @return "?, ?, ?" with as many markers as the chunk's bucket size
+   */
+  static String placeholders(List<?> chunk) {
+    int count = bucket(chunk.size());
+    StringBuilder sb = new StringBuilder(count * 3);
+    for (int i = 0; i < count; i++) {
+      if (i > 0) sb.append(", ");
+      sb.append('?');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Binds the chunk starting at parameter {@code firstIndex}, padding with its last key.
+   * @return the index of the next free parameter
+   */
+  static int bind(PreparedStatement ps, int firstIndex, List<Integer> chunk) throws SQLException {
+    int count = bucket(chunk.size());
+    int last = chunk.get(chunk.size() - 1);
+    for (int i = 0; i < count; i++) {
+      ps.setInt(firstIndex + i, i < chunk.size() ? chunk.get(i) : last);
+    }
+    return firstIndex + count;
+  }
+
+  /**
+   * String-key variant of {@link #bind(PreparedStatement, int, List)}.
+   */
+  static int bindStrings(PreparedStatement ps, int firstIndex, List<String> chunk) throws SQLException {
+    int count = bucket(chunk.size());
+    String last = chunk.get(chunk.size() - 1);
+    for (int i = 0; i < count; i++) {
+      ps.setString(firstIndex + i, i < chunk.size() ? chunk.get(i) : last);
+    }
+    return firstIndex + count;
+  }
+}
@@ -0,0 +1,15 @@
+package com.khazar.sims.database.table;
+
+import java.sql.SQLException;
+
+/**
+ * Receives the rows of a streaming read one at a time (see {@link BaseTable#forEach}).
+ *
+ * The row is not retained by the table, so a visitor that only aggregates or writes rows out
+ * keeps memory use constant however large the table is. The visitor runs while the cursor is
+ * open: it must not hold on to the connection's result set, and should not start long work.
+ */
+@FunctionalInterface
+public interface RowVisitor<T> {
+  void visit(T row) throws SQLException;
+}
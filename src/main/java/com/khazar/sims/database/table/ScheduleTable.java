@@ -1,5 +1,6 @@
 package com.khazar.sims.database.table;
 
+import java.sql.Connection;
 import java.sql.Time;
 import java.sql.Date;
 import java.sql.ResultSet;
@@ -7,7 +8,9 @@ import java.sql.SQLException;
 import java.sql.PreparedStatement;
 
 import com.khazar.sims.core.Session;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.Schedule;
+import com.khazar.sims.database.data.TimetableEntry;
 
 import java.util.List;
 import java.util.ArrayList;
@@ -20,7 +23,8 @@ public class ScheduleTable {
       INSERT INTO schedules (offering_id, day_of_week, date, start_time, end_time, room)
       VALUES (?, ?, ?, ?, ?, ?)
     """;
-    try (PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
       ps.setInt(1, schedule.getCourseOfferingId());
       ps.setString(2, schedule.getDayOfWeek());
       ps.setDate(3, Date.valueOf(schedule.getDate())); 
@@ -40,7 +44,9 @@ public class ScheduleTable {
       ORDER BY date
     """;
     List<Schedule> list = new ArrayList<>();
-    try (PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("ScheduleTable.getSchedulesForOffering"));
       ps.setInt(1, offeringId);
       try (ResultSet rs = ps.executeQuery()) {
         while (rs.next()) {
@@ -63,6 +69,77 @@ public class ScheduleTable {
     );
   }
   
+  /* ---------- Timetables ---------- */
+
+  /* Columns and ordering shared by the student and teacher timetable queries */
+  private static final String TIMETABLE_COLUMNS = """
+      SELECT s.id, s.offering_id, s.day_of_week, s.date, s.start_time, s.end_time, s.room,
+             c.code, c.name, co.section
+    """;
+  private static final String TIMETABLE_WINDOW_AND_ORDER = """
+      AND (s.date IS NULL OR s.date BETWEEN ? AND ?)
+      ORDER BY FIELD(s.day_of_week, 'MON', 'TUE', 'WED', 'THU', 'FRI', 'SAT', 'SUN'), s.start_time, c.code
+    """;
+
+  /**
+   * All class sessions of the courses a student is enrolled in, in one query.
+   * Weekly sessions (no date) are always included; dated sessions only if they fall in [from, to].
+   * Rows are sorted by day of week, then start time.
+   */
+  public List<TimetableEntry> getStudentTimetable(int studentId, LocalDate from, LocalDate to) throws SQLException {
+    final String sql = TIMETABLE_COLUMNS + """
+      FROM enrollments e
+      JOIN course_offerings co ON co.id = e.offering_id
+      JOIN courses c ON c.id = co.course_id
+      JOIN schedules s ON s.offering_id = co.id
+      WHERE e.student_id = ?
+    """ + TIMETABLE_WINDOW_AND_ORDER;
+    return queryTimetable("ScheduleTable.getStudentTimetable", sql, studentId, from, to);
+  }
+
+  /**
+   * All class sessions of the offerings a teacher teaches, in one query.
+   * Same window and ordering rules as {@link #getStudentTimetable}.
+   */
+  public List<TimetableEntry> getTeacherTimetable(int teacherId, LocalDate from, LocalDate to) throws SQLException {
+    final String sql = TIMETABLE_COLUMNS + """
+      FROM course_offerings co
+      JOIN courses c ON c.id = co.course_id
+      JOIN schedules s ON s.offering_id = co.id
+      WHERE co.teacher_id = ?
+    """ + TIMETABLE_WINDOW_AND_ORDER;
+    return queryTimetable("ScheduleTable.getTeacherTimetable", sql, teacherId, from, to);
+  }
+
+  private List<TimetableEntry> queryTimetable(String timeoutKey, String sql, int userId, LocalDate from, LocalDate to) throws SQLException {
+    List<TimetableEntry> list = new ArrayList<>();
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod(timeoutKey));
+      ps.setInt(1, userId);
+      ps.setDate(2, Date.valueOf(from));
+      ps.setDate(3, Date.valueOf(to));
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          Date date = rs.getDate("date");
+          list.add(new TimetableEntry(
+            rs.getInt("id"),
+            rs.getInt("offering_id"),
+            rs.getString("day_of_week"),
+            date != null ? date.toLocalDate() : null,
+            rs.getTime("start_time").toLocalTime(),
+            rs.getTime("end_time").toLocalTime(),
+            rs.getString("room"),
+            rs.getString("code"),
+            rs.getString("name"),
+            rs.getString("section")
+          ));
+        }
+      }
+    }
+    return list;
+  }
+
   /**
    * Get the schedule session for a given offering and date.
    * Returns null if no session is scheduled.
@@ -74,7 +151,9 @@ public class ScheduleTable {
       FROM schedules 
       WHERE offering_id = ? AND date = ?
     """;
-    try (PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("ScheduleTable.getByDate"));
       ps.setInt(1, offeringId);
       ps.setDate(2, Date.valueOf(date)); 
       try (ResultSet rs = ps.executeQuery()) {
@@ -98,7 +177,9 @@ public class ScheduleTable {
       ORDER BY date
     """;
     List<LocalDate> dates = new ArrayList<>();
-    try (PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("ScheduleTable.getActualClassDates"));
       ps.setInt(1, offeringId);
       try (ResultSet rs = ps.executeQuery()) {
         while (rs.next()) {
@@ -119,7 +200,9 @@ public class ScheduleTable {
       WHERE teacher_id = ?
     """;
     List<Integer> ids = new ArrayList<>();
-    try (PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("ScheduleTable.getOfferingsByTeacher"));
       ps.setInt(1, teacherId);
       try (ResultSet rs = ps.executeQuery()) {
         while (rs.next()) ids.add(rs.getInt("id"));
@@ -138,7 +221,9 @@ public class ScheduleTable {
       JOIN courses c ON co.course_id = c.id
       WHERE co.id = ?
     """;
-    try (PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql)) {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("ScheduleTable.getCourseDisplayName"));
       ps.setInt(1, offeringId);
       try (ResultSet rs = ps.executeQuery()) {
         if (rs.next()) {
@@ -1,5 +1,6 @@
 package com.khazar.sims.database.table;
 
+import com.khazar.sims.database.EntityCache;
 import com.khazar.sims.database.data.Semester;
 
 import java.sql.ResultSet;
@@ -12,6 +13,13 @@ import java.sql.Date;
  */
 public class SemesterTable extends BaseTable<Semester> {
 
+  private static final int CACHE_SIZE = 1_000;
+  private static final long CACHE_TTL_MS = 30 * 60_000;
+
+  public SemesterTable() {
+    super(new EntityCache<>("semesters", CACHE_SIZE, CACHE_TTL_MS, Semester::new));
+  }
+
   @Override
   protected String getTableName() {
     return "semesters";
@@ -56,6 +64,7 @@ public class SemesterTable extends BaseTable<Semester> {
     String sql = "UPDATE semesters SET name=?, start_date=?, end_date=? WHERE id=?";
     
     executeUpdate(
+      semester.getId(),
       sql,
       ps -> {
         ps.setString(1, semester.getName());
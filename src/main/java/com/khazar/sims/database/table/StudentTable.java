@@ -29,11 +29,7 @@ public class StudentTable extends UserChildTable<Student> {
   protected int getUserId(Student s) { return s.getUserId(); }
 
   public Student getByUserId(int id) throws SQLException {
-    String sql = "SELECT * FROM " + getTableName() + " WHERE user_id = ?";
-    PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql);
-    ps.setInt(1, id);
-    ResultSet rs = ps.executeQuery();
-    return rs.next() ? map(rs) : null;
+    return getById(id);
   }
 
   @Override
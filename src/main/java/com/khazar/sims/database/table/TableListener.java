@@ -0,0 +1,13 @@
+package com.khazar.sims.database.table;
+
+/**
+ * Notified after a write through a table succeeds (see {@link BaseTable#addListener}).
+ *
+ * Callbacks run on the thread that performed the write, usually a background task,
+ * and must not block or throw.
+ */
+public interface TableListener<T> {
+  default void onAdded(T row) {}
+  default void onUpdated(T row) {}
+  default void onDeleted(int id) {}
+}
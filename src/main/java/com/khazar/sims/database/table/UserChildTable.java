@@ -12,6 +12,10 @@ import java.sql.SQLException;
  * Handles the two-step ADD, UPDATE, and DELETE operations.
  */
 public abstract class UserChildTable<T> extends BaseTable<T> {
+  /* Child rows are keyed by the user they extend */
+  @Override
+  protected String getIdColumn() { return "user_id"; }
+
   protected abstract User getDelegatedUser(T t) throws SQLException;
 
   /** Must return the FK user_id from object T. */
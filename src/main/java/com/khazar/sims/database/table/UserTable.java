@@ -1,15 +1,122 @@
 package com.khazar.sims.database.table;
 
+import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import com.khazar.sims.core.Session;
+import com.khazar.sims.database.BloomFilter;
+import com.khazar.sims.database.EntityCache;
+import com.khazar.sims.database.QueryTimeouts;
 import com.khazar.sims.database.data.User;
 
 
 public class UserTable extends BaseTable<User> {
+  /* List pages, scans and search results never carry the password; map() reads it back as null */
+  private static final String LIST_COLUMNS =
+    "id, role, first_name, last_name, email, NULL AS password, date_of_birth, is_active, last_login";
+
+  /**
+   * Sort orders supported by {@link #search}. Only these column lists ever reach the SQL text.
+   */
+  public enum UserSort {
+    ID("id %1$s"),
+    NAME("last_name %1$s, first_name %1$s, id %1$s"),
+    EMAIL("email %1$s");
+
+    private final String orderBy;
+
+    UserSort(String orderBy) { this.orderBy = orderBy; }
+
+    String orderBy(boolean ascending) {
+      return String.format(orderBy, ascending ? "ASC" : "DESC");
+    }
+  }
+
+  /**
+   * Filters of a user search. Unset filters match everything.
+   *
+   * Every whitespace-separated word of the text must match the start (or, with contains,
+   * any part) of the first name, last name or email. Prefix matching can use the name and
+   * email indexes; contains matching always scans.
+   */
+  public static class Query {
+    private String text = "";
+    private boolean contains = false;
+    private String role = null;
+    private Boolean active = null;
+    private UserSort sort = UserSort.ID;
+    private boolean ascending = true;
+
+    public Query text(String text) { this.text = text == null ? "" : text.strip(); return this; }
+    public Query contains(boolean contains) { this.contains = contains; return this; }
+    public Query role(String role) { this.role = role; return this; }
+    public Query active(Boolean active) { this.active = active; return this; }
+    public Query sort(UserSort sort, boolean ascending) { this.sort = sort; this.ascending = ascending; return this; }
+
+    /**
+     * @return a copy that matches the words anywhere, or null if this query already does or has no text
+     */
+    public Query widened() {
+      if (contains || text.isEmpty())
+        return null;
+      return new Query().text(text).contains(true).role(role).active(active).sort(sort, ascending);
+    }
+
+    private String[] words() {
+      return text.isEmpty() ? new String[0] : text.split("\\s+");
+    }
+
+    private String pattern(String word) {
+      String escaped = word.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+      return (contains ? "%" : "") + escaped + "%";
+    }
+  }
+  /* Sized for every student and teacher of a large university, not just one screen */
+  private static final int CACHE_SIZE = 50_000;
+  private static final long CACHE_TTL_MS = 5 * 60_000;
+
+  /* Email filter sizing: room for twice the current users, 1% false positives */
+  private static final int EMAIL_FILTER_MIN_KEYS = 10_000;
+  private static final double EMAIL_FILTER_FPP = 0.01;
+  /*
+   * A filter answers misses on its own only this long after its scan started. Users added by
+   * other clients or by SQL are not in it, so older filters confirm misses with a query.
+   * Session rebuilds the filter more often than this (Session.EMAIL_FILTER_REFRESH_MS).
+   */
+  public static final long EMAIL_FILTER_MAX_AGE_MS = 6 * 60_000;
+
+  /*
+   * Complete Bloom filter over the normalized emails of all users, or null before the first
+   * scan has finished. A rebuild fills the next filter while this one stays in use.
+   */
+  private volatile EmailFilter emailFilter;
+  private volatile BloomFilter nextEmailFilter;
+
+  private record EmailFilter(BloomFilter bits, long scanStartedAt) {
+    boolean isFresh() {
+      return System.currentTimeMillis() - scanStartedAt <= EMAIL_FILTER_MAX_AGE_MS;
+    }
+  }
+
+  public UserTable() {
+    super(new EntityCache<>("users", CACHE_SIZE, CACHE_TTL_MS, User::new));
+  }
+
+  @Override
+  protected String getListColumns() {
+    return LIST_COLUMNS;
+  }
+
   @Override
   protected String getTableName() { return "users"; }
 
@@ -82,6 +189,8 @@ public class UserTable extends BaseTable<User> {
       }
     );
     user.setId(id);
+    rememberEmail(user.getEmail());
+    fireAdded(user);
     return user;
   }
   
@@ -100,6 +209,7 @@ public class UserTable extends BaseTable<User> {
   @Override
   public void update(User user) throws SQLException {
     executeUpdate(
+      user.getId(),
       "UPDATE users SET first_name=?, last_name=?, email=?, role=?, is_active=? WHERE id=?",
       ps -> {
         ps.setString(1, user.getFirstName());
@@ -110,6 +220,8 @@ public class UserTable extends BaseTable<User> {
         ps.setInt(6, user.getId());
       }
     );
+    rememberEmail(user.getEmail());
+    fireUpdated(user);
   }
 
   /**
@@ -119,21 +231,278 @@ public class UserTable extends BaseTable<User> {
    * @param newPassword The new password (should be hashed before call).
    */
   public void updatePassword(int userId, String newPassword) throws SQLException {
-    executeUpdate("UPDATE users SET password=? WHERE id=?", ps -> {
+    executeUpdate(userId, "UPDATE users SET password=? WHERE id=?", ps -> {
       ps.setString(1, newPassword);
       ps.setInt(2, userId);
     });
   }
 
   public void updateLastLogin(int userId) throws SQLException {
-    executeUpdate("UPDATE users SET last_login = CURRENT_TIMESTAMP WHERE id=?", ps -> ps.setInt(1, userId));
+    executeUpdate(userId, "UPDATE users SET last_login = CURRENT_TIMESTAMP WHERE id=?", ps -> ps.setInt(1, userId));
+  }
+
+  /**
+   * Writes many last_login values in one JDBC batch. Used by the last-login write-behind queue
+   * (Session.getLastLoginWrites()), which records the login time when it happens.
+   * @param lastLogins Login time per user ID.
+   */
+  public void updateLastLogins(Map<Integer, Timestamp> lastLogins) throws SQLException {
+    if (lastLogins.isEmpty())
+      return;
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement("UPDATE users SET last_login = ? WHERE id = ?")) {
+      for (Map.Entry<Integer, Timestamp> entry : lastLogins.entrySet()) {
+        ps.setTimestamp(1, entry.getValue());
+        ps.setInt(2, entry.getKey());
+        ps.addBatch();
+      }
+      ps.executeBatch();
+    }
+    /* Only the written rows go stale; last_login drives no cached decision */
+    for (int userId : lastLogins.keySet()) {
+      invalidateCache(userId);
+    }
   }
 
   public User getByEmail(String email) throws SQLException {
     String sql = "SELECT * FROM users WHERE email = ?";
-    PreparedStatement ps = Session.getDatabaseConnection().prepareStatement(sql);
-    ps.setString(1, email);
-    ResultSet rs = ps.executeQuery();
-    return rs.next() ? map(rs) : null;
+    long generation = cacheGeneration();
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("UserTable.getByEmail"));
+      ps.setString(1, email);
+      try (ResultSet rs = ps.executeQuery()) {
+        return rs.next() ? remember(map(rs), rs.getInt("id"), generation) : null;
+      }
+    }
+  }
+
+  /* ---------------------- AUTHENTICATION ---------------------- */
+
+  /**
+   * Reads a user for a login check, always from the database and never through the cache:
+   * a password change or deactivation made by another client must take effect at once.
+   * @return The user with its password, or null.
+   */
+  public User findForLogin(int id) throws SQLException {
+    return findForLogin("SELECT * FROM users WHERE id = ?", ps -> ps.setInt(1, id));
+  }
+
+  /**
+   * Email variant of {@link #findForLogin(int)}.
+   */
+  public User findForLogin(String email) throws SQLException {
+    return findForLogin("SELECT * FROM users WHERE email = ?", ps -> ps.setString(1, email));
+  }
+
+  private User findForLogin(String sql, Params params) throws SQLException {
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("UserTable.findForLogin"));
+      params.fill(ps);
+      try (ResultSet rs = ps.executeQuery()) {
+        return rs.next() ? map(rs) : null;
+      }
+    }
+  }
+
+  /* ---------------------- EMAIL FILTER ---------------------- */
+
+  /**
+   * Rebuilds the email Bloom filter with a streaming scan of the users table.
+   *
+   * The new filter replaces the old one only after its scan has finished; users added through
+   * this table meanwhile go into both. Bloom filters cannot forget keys, so deleted users and
+   * changed emails stay "possibly present" until the next rebuild. That only costs a query,
+   * never a missed user.
+   */
+  public synchronized void rebuildEmailFilter() throws SQLException {
+    long expected = Math.max(count() * 2L, EMAIL_FILTER_MIN_KEYS);
+    BloomFilter filter = new BloomFilter(expected, EMAIL_FILTER_FPP);
+    long startedAt = System.currentTimeMillis();
+    nextEmailFilter = filter;
+    try {
+      Cursor.forEach(QueryTimeouts.forMethod("UserTable.rebuildEmailFilter"), "SELECT email FROM users", ps -> {}, rs -> rs.getString(1), email -> {
+        if (email != null) filter.add(normalizeEmail(email));
+      });
+      emailFilter = new EmailFilter(filter, startedAt);
+    }
+    finally {
+      nextEmailFilter = null;
+    }
+  }
+
+  /**
+   * @return false only if no user has this email for certain: the filter misses and is
+   *         recent enough to cover users added by other clients. Otherwise true, and the
+   *         caller has to ask the database.
+   */
+  public boolean mayExistEmail(String email) {
+    if (email == null)
+      return false;
+    EmailFilter filter = emailFilter;
+    return filter == null || !filter.isFresh() || filter.bits().mightContain(normalizeEmail(email));
+  }
+
+  /**
+   * Pre-screens emails (e.g. an import batch) without touching the database.
+   * @return The emails that may already belong to a user, in input order; the others are
+   *         certainly free.
+   */
+  public List<String> screenEmails(Collection<String> emails) {
+    List<String> likely = new ArrayList<>();
+    for (String email : emails) {
+      if (email != null && mayExistEmail(email)) likely.add(email);
+    }
+    return likely;
+  }
+
+  /**
+   * Confirms which emails are taken: screens them through the filter first, then queries only
+   * the likely duplicates in IN-clause chunks.
+   * @return The taken emails, as given in the input.
+   */
+  public List<String> getExistingEmails(Collection<String> emails) throws SQLException {
+    /* Normalized email -> the input spelling */
+    Map<String, String> candidates = new LinkedHashMap<>();
+    for (String email : screenEmails(emails)) {
+      candidates.putIfAbsent(normalizeEmail(email), email);
+    }
+
+    List<String> existing = new ArrayList<>();
+    if (candidates.isEmpty())
+      return existing;
+
+    try (Connection conn = Session.getDatabaseConnection()) {
+      for (List<String> chunk : InClause.chunks(candidates.keySet())) {
+        String sql = "SELECT email FROM users WHERE email IN (" + InClause.placeholders(chunk) + ")";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+          ps.setQueryTimeout(QueryTimeouts.forMethod("UserTable.getExistingEmails"));
+          InClause.bindStrings(ps, 1, chunk);
+          try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+              String match = candidates.get(normalizeEmail(rs.getString(1)));
+              if (match != null) existing.add(match);
+            }
+          }
+        }
+      }
+    }
+    return existing;
+  }
+
+  private void rememberEmail(String email) {
+    if (email == null)
+      return;
+    String key = normalizeEmail(email);
+    EmailFilter current = emailFilter;
+    BloomFilter next = nextEmailFilter;
+    if (current != null) current.bits().add(key);
+    if (next != null) next.add(key);
+  }
+
+  /* Email comparison in the database is case-insensitive, so the filter is too */
+  private static String normalizeEmail(String email) {
+    return email.strip().toLowerCase(Locale.ROOT);
+  }
+
+  /* ---------------------- SEARCH ---------------------- */
+
+  /**
+   * Finds users matching the query, in the query's order.
+   * With {@link UserSort#ID} ascending, {@code afterId} continues from the previous page
+   * (keyset pagination, see {@link BaseTable#getPage}); other orders must pass 0.
+   * @param query The filters and order.
+   * @param afterId The id of the last row of the previous page, or 0.
+   * @param limit Maximum number of rows to return.
+   * @return The matching users, without passwords.
+   */
+  public List<User> search(Query query, int afterId, int limit) throws SQLException {
+    if (afterId > 0 && (query.sort != UserSort.ID || !query.ascending))
+      throw new IllegalArgumentException("Keyset paging requires ascending id order.");
+
+    List<Object> params = new ArrayList<>();
+    String where = where(query, params);
+    if (afterId > 0) {
+      where += " AND id > ?";
+      params.add(afterId);
+    }
+    String sql = "SELECT " + LIST_COLUMNS + " FROM users WHERE " + where
+      + " ORDER BY " + query.sort.orderBy(query.ascending) + " LIMIT ?";
+    params.add(limit);
+
+    List<User> users = new ArrayList<>(Math.min(limit, 256));
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("UserTable.search"));
+      bind(ps, params);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          users.add(map(rs));
+        }
+      }
+    }
+    return users;
+  }
+
+  /**
+   * @return The number of users matching the query.
+   */
+  public int count(Query query) throws SQLException {
+    List<Object> params = new ArrayList<>();
+    String sql = "SELECT COUNT(*) FROM users WHERE " + where(query, params);
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("UserTable.count"));
+      bind(ps, params);
+      try (ResultSet rs = ps.executeQuery()) {
+        return rs.next() ? rs.getInt(1) : 0;
+      }
+    }
+  }
+
+  /**
+   * @return The roles that at least one user has, in alphabetical order.
+   */
+  public List<String> getRoles() throws SQLException {
+    List<String> roles = new ArrayList<>();
+    try (Connection conn = Session.getDatabaseConnection();
+      PreparedStatement ps = conn.prepareStatement("SELECT DISTINCT role FROM users ORDER BY role")) {
+      ps.setQueryTimeout(QueryTimeouts.forMethod("UserTable.getRoles"));
+
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          roles.add(rs.getString("role"));
+        }
+      }
+    }
+    return roles;
+  }
+
+  /* Builds the WHERE clause; values go to params in placeholder order */
+  private static String where(Query query, List<Object> params) {
+    StringBuilder where = new StringBuilder("1 = 1");
+    if (query.role != null) {
+      where.append(" AND role = ?");
+      params.add(query.role);
+    }
+    if (query.active != null) {
+      where.append(" AND is_active = ?");
+      params.add(query.active);
+    }
+    for (String word : query.words()) {
+      where.append(" AND (first_name LIKE ? OR last_name LIKE ? OR email LIKE ?)");
+      String pattern = query.pattern(word);
+      params.add(pattern);
+      params.add(pattern);
+      params.add(pattern);
+    }
+    return where.toString();
+  }
+
+  private static void bind(PreparedStatement ps, List<Object> params) throws SQLException {
+    for (int i = 0; i < params.size(); i++) {
+      ps.setObject(i + 1, params.get(i));
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package com.khazar.sims.ui;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.CustomMenuItem;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+
+/**
+ * Drop-down code suggestions under a TextField, e.g. existing department codes while one is typed.
+ *
+ * Suggestions come from an in-memory source (a table's completeCode), so they are computed on the
+ * FX thread on every keystroke without touching the database. Picking one fills in its code.
+ */
+public class CodeCompletion<T> {
+  private static final int MAX_SUGGESTIONS = 8;
+
+  private final TextField field;
+  private final BiFunction<String, Integer, List<T>> source;
+  private final Function<T, String> codeOf;
+  private final Function<T, String> labelOf;
+  private final ContextMenu menu = new ContextMenu();
+
+  /* Set while a suggestion is being applied, so the text change does not reopen the menu */
+  private boolean applying = false;
+
+  /* ---------- Public API ---------- */
+
+  /**
+   * Attaches suggestions to the field.
+   *
+   * @param field   The code input
+   * @param source  Prefix lookup, (prefix, limit) -> rows, e.g. {@code table::completeCode}
+   * @param codeOf  The code of a row
+   * @param labelOf The text shown for a row in the list
+   */
+  public static <T> CodeCompletion<T> attach(TextField field, BiFunction<String, Integer, List<T>> source,
+                                             Function<T, String> codeOf, Function<T, String> labelOf) {
+    return new CodeCompletion<>(field, source, codeOf, labelOf);
+  }
+
+  private CodeCompletion(TextField field, BiFunction<String, Integer, List<T>> source,
+                         Function<T, String> codeOf, Function<T, String> labelOf) {
+    this.field = field;
+    this.source = source;
+    this.codeOf = codeOf;
+    this.labelOf = labelOf;
+
+    field.textProperty().addListener((obs, oldVal, newVal) -> {
+      if (!applying) refresh(newVal);
+    });
+    field.focusedProperty().addListener((obs, oldVal, focused) -> {
+      if (!focused) menu.hide();
+    });
+  }
+
+  /* ---------- Suggestions ---------- */
+
+  private void refresh(String text) {
+    if (text == null || text.isBlank() || !field.isFocused()) {
+      menu.hide();
+      return;
+    }
+
+    List<T> matches = source.apply(text.strip(), MAX_SUGGESTIONS);
+    if (matches.isEmpty()) {
+      menu.hide();
+      return;
+    }
+
+    menu.getItems().clear();
+    for (T row : matches) {
+      CustomMenuItem item = new CustomMenuItem(new Label(labelOf.apply(row)), true);
+      item.setOnAction(e -> apply(codeOf.apply(row)));
+      menu.getItems().add(item);
+    }
+    if (!menu.isShowing()) {
+      menu.show(field, Side.BOTTOM, 0, 0);
+    }
+  }
+
+  private void apply(String code) {
+    applying = true;
+    try {
+      field.setText(code);
+      field.positionCaret(code.length());
+    }
+    finally {
+      applying = false;
+    }
+    menu.hide();
+  }
+}
@@ -1,21 +1,29 @@
 package com.khazar.sims.ui;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.layout.StackPane;
 
 import com.khazar.sims.Main;
+import com.khazar.sims.core.Session;
 
 /**
  * UIManager handles:
  *  - Loading FXML files
  *  - Injecting them into a StackPane
  *  - Running transitions
- *  - Optional view caching
+ *  - Cancelling the background tasks of views that are replaced
  */
 public class UIManager {
+  /* Controller of the view currently shown in each content area, so its tasks can be cancelled */
+  private static final Map<StackPane, Object> controllers = new WeakHashMap<>();
+
   /**
    * Loads an FXML file and places it into a container with a transition.
    *
@@ -25,12 +33,40 @@ public class UIManager {
    * @param duration  Duration of animation in ms
    */
   public static void setView(StackPane contentArea, String fxmlPath, SceneTransition.Type type, double duration) {
-    Parent newContent = loadView(fxmlPath);
-    if (newContent == null) {
+    FXMLLoader loader = load(fxmlPath);
+    if (loader == null) {
       System.err.println("UIManager: Failed to load " + fxmlPath);
       return;
     }
-    SceneTransition.apply(contentArea, newContent, type, duration);
+    releaseViews(contentArea);
+    if (loader.getController() != null) {
+      controllers.put(contentArea, loader.getController());
+    }
+    SceneTransition.apply(contentArea, loader.getRoot(), type, duration);
+  }
+
+  /**
+   * Cancels the background work of the view shown in contentArea and of every view nested
+   * inside it (e.g. the dashboard pages when the whole dashboard is replaced on logout).
+   */
+  private static void releaseViews(StackPane contentArea) {
+    Iterator<Map.Entry<StackPane, Object>> it = controllers.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<StackPane, Object> entry = it.next();
+      if (isWithin(entry.getKey(), contentArea)) {
+        it.remove();
+        if (Session.getAsyncService() != null) {
+          Session.getAsyncService().cancelAll(entry.getValue());
+        }
+      }
+    }
+  }
+
+  private static boolean isWithin(Node node, StackPane contentArea) {
+    for (Node n = node; n != null; n = n.getParent()) {
+      if (n == contentArea) return true;
+    }
+    return false;
   }
 
 
@@ -49,10 +85,15 @@ public class UIManager {
    * @return loaded FXML root node or null on failure
    */
   public static Parent loadView(String path) {
+    FXMLLoader loader = load(path);
+    return loader != null ? loader.getRoot() : null;
+  }
+
+  private static FXMLLoader load(String path) {
     try {
       FXMLLoader loader = new FXMLLoader(Main.class.getResource(path));
-      Parent root = loader.load();
-      return root;
+      loader.load();
+      return loader;
     }
     catch (IOException e) {
       System.out.println(e);
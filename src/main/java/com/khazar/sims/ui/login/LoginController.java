@@ -1,6 +1,7 @@
 package com.khazar.sims.ui.login;
 
 import java.sql.SQLException;
+import java.sql.Timestamp;
 
 import com.khazar.sims.core.Session;
 import com.khazar.sims.database.data.User;
@@ -52,7 +53,7 @@ public class LoginController {
     passwordField.setOnAction(e -> tryLogin());
     
     /* Action to perform when typing pause finishes */
-    typingPause.setOnFinished(e -> tryLogin());
+    typingPause.setOnFinished(e -> tryLogin(true));
   }
 
   /* Plays the pause timer when both fields have content */
@@ -67,6 +68,14 @@ public class LoginController {
   /* ---------------- Login Flow ---------------- */
   @FXML
   private void tryLogin() {
+    tryLogin(false);
+  }
+
+  /**
+   * @param onTypingPause true for the automatic attempt after a typing pause, false when the
+   *                      user submitted the form
+   */
+  private void tryLogin(boolean onTypingPause) {
     if (isProcessing) return;
     
     String input = idOrEmailField.getText().trim();
@@ -90,6 +99,17 @@ public class LoginController {
       return;
     }
     
+    /*
+     * The automatic attempt rejects unknown emails from memory, so a half-typed address doesn't
+     * cost a database round trip on every pause. mayExistEmail only says no when its filter is
+     * complete and recent. A submitted form always asks the database: findForLogin confirms
+     * the miss, since a user added after the last filter build must still be able to log in.
+     */
+    if (onTypingPause && isEmail && !Session.getUsersTable().mayExistEmail(input)) {
+      showMessage("Email not found.", false);
+      return;
+    }
+
     /* Start the asynchronous authentication process */
     authenticateAsync(input, pass, isEmail);
   }
@@ -104,9 +124,10 @@ public class LoginController {
       @Override
       protected User call() throws SQLException {
         /* This runs in a background thread */
-        return isEmail 
-          ? Session.getUsersTable().getByEmail(input) 
-          : Session.getUsersTable().getById(Integer.parseInt(input));
+        /* Credentials are read straight from the database, never from the user cache */
+        return isEmail
+          ? Session.getUsersTable().findForLogin(input)
+          : Session.getUsersTable().findForLogin(Integer.parseInt(input));
       }
     };
 
@@ -125,13 +146,18 @@ public class LoginController {
         setControlsDisabled(false);
         return;
       }
-      
-      /* Login successful, perform final updates and navigate */
-      try {
-        Session.getUsersTable().updateLastLogin(user.getId());
+
+      if (!user.isActive()) {
+        showMessage("This account has been deactivated.", false);
+        setControlsDisabled(false);
+        return;
       }
-      catch (SQLException ex) {
-        System.err.println("Failed to update last_login: " + ex.getMessage());
+      
+      /* Login successful: last_login is written behind, so navigation doesn't wait on it */
+      Timestamp now = new Timestamp(System.currentTimeMillis());
+      user.setLastLogin(now);
+      if (Session.getLastLoginWrites() != null) {
+        Session.getLastLoginWrites().enqueue(user.getId(), now);
       }
 
       showMessage("✅ Login successful! Redirecting...", true);
@@ -146,7 +172,7 @@ public class LoginController {
     });
     
     /* Start the Task in a new thread */
-    new Thread(authTask).start();
+    Session.getAsyncService().submit(authTask);
   }
 
   /* ---------------- UI Helpers ---------------- */
@@ -15,7 +15,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Student Attendance Controller - View attendance records by course
@@ -131,7 +130,7 @@ public class AttendanceController {
       updateStatus("Error loading courses: " + e.getSource().getException().getMessage(), "error");
     });
     
-    new Thread(task).start();
+    Session.getAsyncService().submitLatest(this, "courses", task);
   }
   
   private Task<List<CourseOption>> createCourseLoadTask() {
@@ -145,9 +144,16 @@ public class AttendanceController {
         List<Enrollment> enrollments = Session.getEnrollmentTable().getByStudentId(studentUserId);
         List<CourseOption> options = new ArrayList<>();
 
+        /* Two IN queries (offerings, then their courses) instead of two queries per enrollment */
+        Map<Integer, CourseOffering> offerings = Session.getCourseOfferingTable()
+          .getByIds(enrollments.stream().map(Enrollment::getCourseOfferingId).toList());
+        Map<Integer, Course> courses = Session.getCourseTable()
+          .getByIds(offerings.values().stream().map(CourseOffering::getCourseId).toList());
+
         for (Enrollment enrollment : enrollments) {
-          CourseOffering offering = Session.getCourseOfferingTable().getById(enrollment.getCourseOfferingId());
-          Course course = Session.getCourseTable().getById(offering.getCourseId());
+          CourseOffering offering = offerings.get(enrollment.getCourseOfferingId());
+          Course course = offering != null ? courses.get(offering.getCourseId()) : null;
+          if (course == null) continue;
           
           String display = String.format("%s - %s (Section %s)", 
             course.getCode(), course.getName(), offering.getSection());
@@ -164,11 +170,11 @@ public class AttendanceController {
     CourseOption selected = cmbCourse.getValue();
     if (selected == null) {
       attendanceRecords.clear();
-      updateStatistics();
+      updateStatistics(null);
       return;
     }
     
-    Task<List<AttendanceView>> task = createAttendanceLoadTask(selected.getOfferingId());
+    Task<StudentAttendanceSummary> task = createAttendanceLoadTask(selected.getOfferingId());
 
     task.setOnRunning(e -> {
       updateStatus("Loading attendance for " + selected.toString() + "...", "info");
@@ -176,76 +182,49 @@ public class AttendanceController {
     });
     
     task.setOnSucceeded(e -> {
-      attendanceRecords.setAll(task.getValue());
-      updateStatistics();
+      StudentAttendanceSummary summary = task.getValue();
+      attendanceRecords.setAll(summary.getSessions().stream().map(this::toView).toList());
+      updateStatistics(summary);
       updateStatus("Attendance loaded - " + attendanceRecords.size() + " sessions", "success");
     });
     
     task.setOnFailed(e -> {
       attendanceRecords.clear();
-      updateStatistics();
+      updateStatistics(null);
       Throwable exception = e.getSource().getException();
       updateStatus("Error loading attendance: " + exception.getMessage(), "error");
       exception.printStackTrace();
       attendanceTable.setPlaceholder(new Label("Error loading attendance."));
     });
     
-    new Thread(task).start();
+    Session.getAsyncService().submitLatest(this, "sheet", task);
   }
 
-  private Task<List<AttendanceView>> createAttendanceLoadTask(int offeringId) {
+  private Task<StudentAttendanceSummary> createAttendanceLoadTask(int offeringId) {
     return new Task<>() {
       @Override
-      protected List<AttendanceView> call() throws SQLException {
-        
-        /* 1. Get all scheduled sessions (with dates) for the course offering */
-        List<Schedule> schedules = Session.getScheduleTable().getSchedulesForOffering(offeringId);
-        if (schedules.isEmpty()) {
-          return new ArrayList<>();
-        }
-        
-        /* 2. Get all attendance records for this student across ALL schedules */
-        List<Attendance> allStudentAttendance = Session.getAttendanceTable().getByStudentId(studentUserId);
-        
-        /* Map attendance records by schedule ID for quick lookup: ScheduleId -> isPresent */
-        Map<Integer, Boolean> attendanceMap = allStudentAttendance.stream()
-          .collect(Collectors.toMap(Attendance::getSessionId, Attendance::isPresent, (a, b) -> a));
-
-        List<AttendanceView> records = new ArrayList<>();
-        
-        /* 3. Combine schedules with attendance status */
-        for (Schedule schedule : schedules) {
-          
-          Boolean present = attendanceMap.get(schedule.getId());
-          
-          String status;
-          if (present == null) {
-            status = "Not Recorded";
-          } else if (present) {
-            status = "Present";
-          } else {
-            status = "Absent";
-          }
-          
-          String date = schedule.getDate().format(DATE_FORMATTER);
-          String time = formatTime(
-            schedule.getStartTime().toString(), 
-            schedule.getEndTime().toString()
-          );
-          
-          records.add(new AttendanceView(
-            date, 
-            schedule.getDayOfWeek(),
-            time,
-            status
-          ));
-        }
-        
-        /* Sorting is already handled in the ScheduleTable query (ORDER BY date) */
-        return records;
+      protected StudentAttendanceSummary call() throws SQLException {
+        /* Only this offering's sessions, with totals already counted by the database */
+        return Session.getAttendanceTable().getStudentAttendanceForOffering(studentUserId, offeringId);
       }
     };
   }
+
+  private AttendanceView toView(SessionAttendance session) {
+    String status = switch (session.getStatus()) {
+      case PRESENT -> "Present";
+      case ABSENT -> "Absent";
+      case UNRECORDED -> "Not Recorded";
+    };
+
+    String date = session.getDate() != null ? session.getDate().format(DATE_FORMATTER) : "-";
+    String time = formatTime(
+      session.getStartTime().toString(),
+      session.getEndTime().toString()
+    );
+
+    return new AttendanceView(date, session.getDayOfWeek(), time, status);
+  }
   
   /* ================= UTILITIES & DTOs ================= */
   
@@ -260,23 +239,21 @@ public class AttendanceController {
     }
   }
   
-  private void updateStatistics() {
-    int total = attendanceRecords.size();
-    long present = attendanceRecords.stream()
-      .filter(a -> a.getStatus().equals("Present"))
-      .count();
-    long absent = attendanceRecords.stream()
-      .filter(a -> a.getStatus().equals("Absent"))
-      .count();
-    
-    lblTotalSessions.setText(String.valueOf(total));
-    lblPresent.setText(String.valueOf(present));
-    lblAbsent.setText(String.valueOf(absent));
+  private void updateStatistics(StudentAttendanceSummary summary) {
+    if (summary == null) {
+      lblTotalSessions.setText("0");
+      lblPresent.setText("0");
+      lblAbsent.setText("0");
+      lblAttendanceRate.setText("0.0%");
+      return;
+    }
+
+    lblTotalSessions.setText(String.valueOf(summary.getTotalSessions()));
+    lblPresent.setText(String.valueOf(summary.getPresentCount()));
+    lblAbsent.setText(String.valueOf(summary.getAbsentCount()));
     
-    /* Calculate rate based on recorded sessions only (excluding "Not Recorded") */
-    long recordedSessions = present + absent;
-    double rate = recordedSessions > 0 ? (present * 100.0 / recordedSessions) : 0.0;
-    lblAttendanceRate.setText(String.format("%.1f%%", rate));
+    /* Rate is based on recorded sessions only (excluding "Not Recorded") */
+    lblAttendanceRate.setText(String.format("%.1f%%", summary.getAttendanceRate()));
   }
   
   private void updateStatus(String message, String type) {
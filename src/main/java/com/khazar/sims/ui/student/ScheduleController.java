@@ -1,16 +1,16 @@
 package com.khazar.sims.ui.student;
 
 import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.khazar.sims.core.Session;
-import com.khazar.sims.database.data.Course;
-import com.khazar.sims.database.data.CourseOffering;
-import com.khazar.sims.database.data.Enrollment;
-import com.khazar.sims.database.data.Schedule;
-import com.khazar.sims.database.data.Student;
+import com.khazar.sims.database.data.TimetableEntry;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -89,45 +89,26 @@ public class ScheduleController {
       System.err.println(e);
     });
 
-    Thread t = new Thread(task);
-    t.setDaemon(true);
-    t.start();
+    Session.getAsyncService().submitLatest(this, "schedule", task);
   }
 
   private List<ScheduleView> loadScheduleData() throws SQLException {
-    ObservableList<ScheduleView> result = FXCollections.observableArrayList();
-
     int userId = Session.getActiveUser().getId();
-    Student student = Session.getStudentTable().getByUserId(userId);
-
-    List<Enrollment> enrollments =
-      Session.getEnrollmentTable().getByStudentId(student.getUserId());
-
-    for (Enrollment enrollment : enrollments) {
-      CourseOffering offering =
-        Session.getCourseOfferingTable().getById(enrollment.getCourseOfferingId());
 
-      Course course =
-        Session.getCourseTable().getById(offering.getCourseId());
-
-      List<Schedule> schedules =
-        Session.getScheduleTable().getSchedulesForOffering(offering.getId());
-
-      for (Schedule schedule : schedules) {
-        result.add(new ScheduleView(
-          schedule.getDayOfWeek(),
-          formatTime(schedule.getStartTime(), schedule.getEndTime()),
-          course.getCode() + " - " + course.getName(),
-          schedule.getRoom()
-        ));
-      }
+    /* Current week; rows arrive sorted by day and start time */
+    LocalDate monday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    List<TimetableEntry> timetable =
+      Session.getScheduleTable().getStudentTimetable(userId, monday, monday.plusDays(6));
+
+    List<ScheduleView> result = new ArrayList<>(timetable.size());
+    for (TimetableEntry entry : timetable) {
+      result.add(new ScheduleView(
+        entry.getDayOfWeek(),
+        formatTime(entry.getStartTime(), entry.getEndTime()),
+        entry.getCourseCode() + " - " + entry.getCourseName(),
+        entry.getRoom()
+      ));
     }
-
-    result.sort((s1, s2) -> {
-      int dayCompare = getDayOrder(s1.getDayOfWeek()) - getDayOrder(s2.getDayOfWeek());
-      return (dayCompare != 0) ? dayCompare : s1.getTimeRange().compareTo(s2.getTimeRange());
-    });
-
     return result;
   }
 
@@ -136,19 +117,6 @@ public class ScheduleController {
     return start.format(formatter) + " - " + end.format(formatter);
   }
 
-  private int getDayOrder(String day) {
-    return switch (day.toUpperCase()) {
-      case "MON" -> 1;
-      case "TUE" -> 2;
-      case "WED" -> 3;
-      case "THU" -> 4;
-      case "FRI" -> 5;
-      case "SAT" -> 6;
-      case "SUN" -> 7;
-      default -> 8;
-    };
-  }
-
   private void updateStatus(String message, String type) {
     if (statusLabel != null) {
       Platform.runLater(() -> {
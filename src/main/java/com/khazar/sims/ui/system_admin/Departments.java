@@ -1,10 +1,13 @@
 package com.khazar.sims.ui.system_admin;
 
+import com.khazar.sims.core.ParallelLoad;
+import com.khazar.sims.core.SearchIndex;
 import com.khazar.sims.core.Session;
 import com.khazar.sims.database.data.Department;
 import com.khazar.sims.database.data.Faculty;
 import com.khazar.sims.database.table.DepartmentTable;
 import com.khazar.sims.database.table.FacultyTable;
+import com.khazar.sims.ui.CodeCompletion;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -19,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javafx.beans.property.ReadOnlyStringWrapper;
 
@@ -53,6 +57,11 @@ public class Departments {
 
   /* === Data and State === */
   private ObservableList<Department> departmentsList;
+  /* Rows shown while a search is active, refilled from the index on every keystroke */
+  private final ObservableList<Department> filteredDepartments = FXCollections.observableArrayList();
+  private final SearchIndex<Department> departmentIndex = new SearchIndex<>(d -> new String[] {
+    d.getName(), d.getCode(), facultyName(d)
+  });
   private List<Faculty> facultyList;
   private Department selectedDepartment;
 
@@ -73,12 +82,23 @@ public class Departments {
     setupTableColumns();
     loadSupportingData();
     setupTableListeners();
+    /* Existing codes as you type, straight from the in-memory code index; codes are per faculty */
+    CodeCompletion.attach(txtCode, this::completeCode, Department::getCode,
+      d -> d.getCode() + " - " + d.getName() + (facultyName(d) != null ? " (" + facultyName(d) + ")" : ""));
     
     editButton.setDisable(true);
     deleteButton.setDisable(true);
     formPane.setVisible(false);
   }
   
+  /* Code suggestions from the selected faculty, or from every faculty while none is selected */
+  private List<Department> completeCode(String prefix, Integer limit) {
+    Faculty faculty = cmbFaculty.getValue();
+    return faculty != null
+      ? departmentsTable.completeCode(faculty.getId(), prefix, limit)
+      : departmentsTable.completeCode(prefix, limit);
+  }
+
   /**
    * Configures the cell value factories for the TableView columns, 
    * including a custom factory to display the Faculty name.
@@ -99,69 +119,73 @@ public class Departments {
   }
 
   /**
-   * Loads Faculty data (supporting data for the ComboBox and mapping) asynchronously.
+   * Loads Faculty data (supporting data for the ComboBox and mapping) and the departments
+   * asynchronously, in parallel.
    */
   private void loadSupportingData() {
-    statusLabel.setText("Loading supporting data...");
+    statusLabel.setText("Loading faculties and departments...");
     setControlsDisabled(true);
 
-    Task<List<Faculty>> loadTask = new Task<>() {
-      @Override
-      protected List<Faculty> call() throws SQLException {
-        return facultiesTable.getAll();
-      }
-
+    Task<ScreenData> loadTask = new Task<>() {
       @Override
-      protected void succeeded() {
-        facultyList = getValue();
-        /* Create the map for quick lookups in the TableView */
-        facultyMap = facultyList.stream()
-          .collect(Collectors.toMap(Faculty::getId, Function.identity()));
-          
-        cmbFaculty.setItems(FXCollections.observableArrayList(facultyList));
-        statusLabel.setText("Supporting data loaded. Loading departments...");
-
-        /* Set up converter to display Faculty objects by name in the ComboBox */
-        cmbFaculty.setConverter(new javafx.util.StringConverter<>() {
-          @Override
-          public String toString(Faculty object) {
-            return object != null ? object.getName() : "";
-          }
-          @Override
-          public Faculty fromString(String string) {
-            return facultyList.stream()
-              .filter(f -> f.getName().equals(string))
-              .findFirst()
-              .orElse(null);
-          }
+      protected ScreenData call() throws SQLException, InterruptedException {
+        /* Both queries run at once; if one fails the other is cancelled */
+        return ParallelLoad.run(fork -> {
+          Supplier<List<Faculty>> faculties = fork.query(facultiesTable::getAll);
+          Supplier<List<Department>> departments = fork.query(departmentsTable::getAll);
+          return () -> new ScreenData(faculties.get(), departments.get());
         });
-        
-        loadDepartmentData();
       }
+    };
+
+    /* Handlers instead of succeeded()/failed() overrides, so a superseded load is discarded */
+    loadTask.setOnRunning(e -> isTaskRunning = true);
+
+    loadTask.setOnSucceeded(e -> {
+      ScreenData data = loadTask.getValue();
+      applyFaculties(data.faculties);
+      applyDepartments(data.departments);
+    });
+
+    loadTask.setOnFailed(e -> {
+      Throwable ex = loadTask.getException();
+      statusLabel.setText("Failed to load supporting data.");
+      showErrorAlert(DB_ERROR_TITLE, "Failed to load faculty and department data.", ex.getMessage());
+      ex.printStackTrace();
+      System.err.println(ex);
+      isTaskRunning = false;
+      setControlsDisabled(false);
+    });
+
+    Session.getAsyncService().submitLatest(this, "departments", loadTask);
+  }
+
+  private void applyFaculties(List<Faculty> faculties) {
+    facultyList = faculties;
+    /* Create the map for quick lookups in the TableView */
+    facultyMap = facultyList.stream()
+      .collect(Collectors.toMap(Faculty::getId, Function.identity()));
+      
+    cmbFaculty.setItems(FXCollections.observableArrayList(facultyList));
 
+    /* Set up converter to display Faculty objects by name in the ComboBox */
+    cmbFaculty.setConverter(new javafx.util.StringConverter<>() {
       @Override
-      protected void failed() {
-        Throwable e = getException();
-        statusLabel.setText("Failed to load supporting data.");
-        showErrorAlert(DB_ERROR_TITLE, "Failed to load faculty data for selection.", e.getMessage());
-        e.printStackTrace();
-        System.err.println(e);
-        isTaskRunning = false;
-        setControlsDisabled(false);
+      public String toString(Faculty object) {
+        return object != null ? object.getName() : "";
       }
-      
       @Override
-      protected void running() {
-        super.running();
-        isTaskRunning = true;
+      public Faculty fromString(String string) {
+        return facultyList.stream()
+          .filter(f -> f.getName().equals(string))
+          .findFirst()
+          .orElse(null);
       }
-    };
-
-    new Thread(loadTask).start();
+    });
   }
 
   /**
-   * Loads department data from the database asynchronously.
+   * Reloads department data from the database asynchronously (after a save or delete).
    */
   private void loadDepartmentData() {
     statusLabel.setText("Loading departments...");
@@ -172,40 +196,47 @@ public class Departments {
       protected List<Department> call() throws SQLException {
         return departmentsTable.getAll();
       }
+    };
 
-      @Override
-      protected void succeeded() {
-        List<Department> departments = getValue();
-        departmentsList = FXCollections.observableArrayList(departments);
-        departmentTable.setItems(departmentsList);
-        statusLabel.setText("Total Departments: " + departments.size() + ". Double-click to edit.");
-        
-        /* Reapply filter in case it was active */
-        filterData(searchField.getText()); 
-        
-        isTaskRunning = false;
-        setControlsDisabled(false);
-      }
+    loadTask.setOnRunning(e -> isTaskRunning = true);
 
-      @Override
-      protected void failed() {
-        Throwable e = getException();
-        statusLabel.setText("Failed to load departments.");
-        showErrorAlert(DB_ERROR_TITLE, "Failed to load departments.", e.getMessage());
-        System.err.println(e);
-        
-        isTaskRunning = false;
-        setControlsDisabled(false);
-      }
+    loadTask.setOnSucceeded(e -> applyDepartments(loadTask.getValue()));
+
+    loadTask.setOnFailed(e -> {
+      Throwable ex = loadTask.getException();
+      statusLabel.setText("Failed to load departments.");
+      showErrorAlert(DB_ERROR_TITLE, "Failed to load departments.", ex.getMessage());
+      System.err.println(ex);
       
-      @Override
-      protected void running() {
-        super.running();
-        isTaskRunning = true;
-      }
-    };
+      isTaskRunning = false;
+      setControlsDisabled(false);
+    });
+    
+    Session.getAsyncService().submitLatest(this, "departments", loadTask);
+  }
+
+  private void applyDepartments(List<Department> departments) {
+    departmentsList = FXCollections.observableArrayList(departments);
+    departmentIndex.setItems(departmentsList);
+    departmentTable.setItems(departmentsList);
+    statusLabel.setText("Total Departments: " + departments.size() + ". Double-click to edit.");
+    
+    /* Reapply filter in case it was active */
+    filterData(searchField.getText()); 
     
-    new Thread(loadTask).start();
+    isTaskRunning = false;
+    setControlsDisabled(false);
+  }
+
+  /* Result of the initial load */
+  private static class ScreenData {
+    private final List<Faculty> faculties;
+    private final List<Department> departments;
+
+    ScreenData(List<Faculty> faculties, List<Department> departments) {
+      this.faculties = faculties;
+      this.departments = departments;
+    }
   }
   
   /**
@@ -240,32 +271,25 @@ public class Departments {
   
   /**
    * Filters the TableView data based on the provided search text.
+   * Matches word prefixes of the name, code and faculty name through the search index.
    */
   private void filterData(String searchText) {
     if (departmentsList == null) {
       return;
     }
     
-    final String lowerCaseSearchText = searchText.toLowerCase().trim();
-    
-    if (lowerCaseSearchText.isEmpty()) {
+    if (searchText == null || searchText.isBlank()) {
       departmentTable.setItems(departmentsList);
       return;
     }
 
-    ObservableList<Department> filteredList = departmentsList.filtered(d -> {
-      Faculty faculty = facultyMap.get(d.getFacultyId());
-      String facultyName = (faculty != null) ? faculty.getName() : "";
-      
-      boolean matchesNameOrCode = d.getName().toLowerCase().contains(lowerCaseSearchText) || 
-        d.getCode().toLowerCase().contains(lowerCaseSearchText);
-      
-      boolean matchesFaculty = !facultyName.isEmpty() && facultyName.toLowerCase().contains(lowerCaseSearchText);
-      
-      return matchesNameOrCode || matchesFaculty;
-    });
-      
-    departmentTable.setItems(filteredList);
+    filteredDepartments.setAll(departmentIndex.search(searchText));
+    departmentTable.setItems(filteredDepartments);
+  }
+
+  private String facultyName(Department department) {
+    Faculty faculty = facultyMap != null ? facultyMap.get(department.getFacultyId()) : null;
+    return faculty != null ? faculty.getName() : null;
   }
 
   /* === CRUD Operations === */
@@ -412,7 +436,7 @@ public class Departments {
       }
     };
     
-    new Thread(saveTask).start();
+    Session.getAsyncService().submit(saveTask);
   }
 
   /**
@@ -468,7 +492,7 @@ public class Departments {
         }
       };
       
-      new Thread(deleteTask).start();
+      Session.getAsyncService().submit(deleteTask);
     }
   }
 
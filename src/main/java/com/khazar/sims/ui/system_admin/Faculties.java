@@ -1,7 +1,9 @@
 package com.khazar.sims.ui.system_admin;
 
+import com.khazar.sims.core.SearchIndex;
 import com.khazar.sims.core.Session;
 import com.khazar.sims.database.data.Faculty;
+import com.khazar.sims.ui.CodeCompletion;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -22,6 +24,7 @@ import java.util.Optional;
  */
 public class Faculties {
   /* === UI Components === */
+  @FXML private TextField searchField;
   @FXML private Button addButton;
   @FXML private Button editButton;
   @FXML private Button deleteButton;
@@ -40,6 +43,8 @@ public class Faculties {
   
   /* === Data and State === */
   private ObservableList<Faculty> facultyList;
+  private final ObservableList<Faculty> filteredFaculties = FXCollections.observableArrayList();
+  private final SearchIndex<Faculty> facultyIndex = new SearchIndex<>(f -> new String[] { f.getName(), f.getCode() });
   private Faculty selectedFaculty;
   
   // Flag to track if a task is running.
@@ -55,6 +60,9 @@ public class Faculties {
 
     setupTableColumns();
     setupTableListeners();
+    /* Existing codes as you type, straight from the in-memory code index */
+    CodeCompletion.attach(txtCode, Session.getFacultyTable()::completeCode, Faculty::getCode,
+      f -> f.getCode() + " - " + f.getName());
     
     editButton.setDisable(true);
     deleteButton.setDisable(true);
@@ -96,6 +104,21 @@ public class Faculties {
         }
       }
     });
+
+    /* 3. Live filtering on search field text change */
+    searchField.textProperty().addListener((obs, oldVal, newVal) -> filterData(newVal));
+  }
+
+  /**
+   * Shows the faculties whose name or code has a word starting with each word of the search text.
+   */
+  private void filterData(String searchText) {
+    if (searchText == null || searchText.isBlank()) {
+      facultyTable.setItems(facultyList);
+      return;
+    }
+    filteredFaculties.setAll(facultyIndex.search(searchText));
+    facultyTable.setItems(filteredFaculties);
   }
 
   /**
@@ -110,40 +133,35 @@ public class Faculties {
       protected List<Faculty> call() throws SQLException {
         return Session.getFacultyTable().getAll();
       }
+    };
 
-      @Override
-      protected void succeeded() {
-        List<Faculty> faculties = getValue();
-        facultyList.setAll(faculties);
-        statusLabel.setText(String.format("Total Faculties: %d. Double-click to edit.", faculties.size()));
-        
-        // Cleanup on success
-        isTaskRunning = false;
-        setControlsDisabled(false); 
-      }
+    /* Handlers instead of succeeded()/failed() overrides, so a superseded load is discarded */
+    loadTask.setOnRunning(e -> isTaskRunning = true);
 
-      @Override
-      protected void failed() {
-        Throwable e = getException();
-        statusLabel.setText("Failed to load faculties.");
-        showErrorAlert("Database Load Error", "Failed to load faculties from the database.", e.getMessage());
-        System.err.println("Load failed: " + e);
+    loadTask.setOnSucceeded(e -> {
+      List<Faculty> faculties = loadTask.getValue();
+      facultyList.setAll(faculties);
+      facultyIndex.setItems(faculties);
+      filterData(searchField.getText());
+      statusLabel.setText(String.format("Total Faculties: %d. Double-click to edit.", faculties.size()));
+      
+      // Cleanup on success
+      isTaskRunning = false;
+      setControlsDisabled(false); 
+    });
 
-        // Cleanup on failure
-        isTaskRunning = false;
-        setControlsDisabled(false); 
-      }
+    loadTask.setOnFailed(e -> {
+      Throwable ex = loadTask.getException();
+      statusLabel.setText("Failed to load faculties.");
+      showErrorAlert("Database Load Error", "Failed to load faculties from the database.", ex.getMessage());
+      System.err.println("Load failed: " + ex);
 
-      @Override
-      protected void running() {
-        super.running();
-        isTaskRunning = true;
-      }
-      
-      // NOTE: The non-existent 'finished()' method has been removed.
-    };
+      // Cleanup on failure
+      isTaskRunning = false;
+      setControlsDisabled(false); 
+    });
 
-    new Thread(loadTask).start();
+    Session.getAsyncService().submitLatest(this, "faculties", loadTask);
   }
   
   /**
@@ -259,7 +277,7 @@ public class Faculties {
       }
     };
 
-    new Thread(saveTask).start();
+    Session.getAsyncService().submit(saveTask);
   }
 
   /**
@@ -314,7 +332,7 @@ public class Faculties {
         }
       };
       
-      new Thread(deleteTask).start();
+      Session.getAsyncService().submit(deleteTask);
     }
   }
 
@@ -1,20 +1,23 @@
 package com.khazar.sims.ui.system_admin;
 
+import com.khazar.sims.core.PagedTable;
 import com.khazar.sims.core.Session;
 import com.khazar.sims.database.data.User;
 import com.khazar.sims.database.table.UserTable;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.AnchorPane;
+import javafx.util.Duration;
 
+import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
@@ -24,6 +27,11 @@ public class UserManagement {
 
   private static final String REQUIRED_FIELDS_MSG = "Full Name, Email, Role, and a Password (for new users) are required.";
   private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+  private static final int PAGE_SIZE = 100;
+  /* A burst of keystrokes closer together than this produces one search */
+  private static final Duration SEARCH_DEBOUNCE = Duration.millis(300);
+  private static final String ALL_ROLES = "All";
+  private static final int FUZZY_LIMIT = 50;
 
   @FXML private TableView<User> userTable;
   @FXML private TableColumn<User, Integer> colId;
@@ -47,8 +55,15 @@ public class UserManagement {
   @FXML private TextField pwdPassword;
   @FXML private CheckBox chkActive;
 
-  private ObservableList<User> masterUserData;
-  private FilteredList<User> filteredUserData;
+  /* Users matching the current search, paged in by id as the table scrolls */
+  private PagedTable<User> pagedUsers;
+  /* Replaced on the FX thread before each reload */
+  private UserTable.Query userQuery = new UserTable.Query();
+  /* The search being paged; a reload starts a new one, read by the page queries */
+  private volatile UserSearch userSearch;
+  private volatile String searchText = "";
+  private volatile String roleFilter = null;
+  private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
   private User selectedUser = null;
   private final UserTable usersTable = Session.getUsersTable();
 
@@ -61,10 +76,9 @@ public class UserManagement {
     List<String> roles = List.of("Admin", "Faculty", "Student");
     cmbRole.setItems(FXCollections.observableArrayList(roles));
 
-    ObservableList<String> filterRoles = FXCollections.observableArrayList("All");
-    filterRoles.addAll(roles);
-    cmbRoleFilter.setItems(filterRoles);
+    cmbRoleFilter.setItems(FXCollections.observableArrayList(ALL_ROLES));
     cmbRoleFilter.getSelectionModel().selectFirst();
+    loadRoleFilter();
 
     formPane.setVisible(false);
   }
@@ -96,29 +110,58 @@ public class UserManagement {
   }
 
   private void loadUserData() {
+    if (pagedUsers == null) {
+      pagedUsers = new PagedTable<>(userTable, this, "users", User::getId,
+        (afterId, limit) -> userSearch.page(afterId, limit),
+        () -> userSearch.count(),
+        PAGE_SIZE);
+      /* When even the contains search finds nobody, show close matches instead (one list, not paged) */
+      pagedUsers.setFallback(this::fuzzyMatches);
+      userTable.setItems(pagedUsers.getItems());
+      pagedUsers.setOnLoaded(() -> statusLabel.setText(pagedUsers.isShowingFallback()
+        ? String.format("No exact match. Displaying %d similar Users.", pagedUsers.getItems().size())
+        : String.format("Displaying %d of %d Users.", pagedUsers.getItems().size(), pagedUsers.getTotalCount())));
+      pagedUsers.setOnFailed(ex -> {
+        statusLabel.setText("Failed to load user data.");
+        showErrorAlert("Database Error", "Failed to load users.", ex.getMessage());
+      });
+    }
     statusLabel.setText("Loading user accounts...");
-    Task<List<User>> task = new Task<>() {
-      @Override
-      protected List<User> call() throws Exception {
-        return usersTable.getAll();
-      }
+    userSearch = new UserSearch(usersTable, userQuery);
+    pagedUsers.reload();
+  }
 
-      @Override
-      protected void succeeded() {
-        masterUserData = FXCollections.observableArrayList(getValue());
-        filteredUserData = new FilteredList<>(masterUserData, p -> true);
-        userTable.setItems(filteredUserData);
-        filterUsers();
-      }
+  /**
+   * Misspelled names: ranked candidates from the in-memory user index.
+   * Runs on the reload task, once per search that found nobody even as a contains match.
+   */
+  private List<User> fuzzyMatches() {
+    String text = searchText;
+    if (text.isBlank())
+      return List.of();
+    String role = roleFilter;
+    return Session.getUserIndex().search(text, FUZZY_LIMIT,
+      user -> role == null || role.equals(user.getRole()));
+  }
 
+  /**
+   * Fills the role filter with the roles present in the database.
+   */
+  private void loadRoleFilter() {
+    Task<List<String>> task = new Task<>() {
       @Override
-      protected void failed() {
-        Throwable e = getException();
-        statusLabel.setText("Failed to load user data.");
-        showErrorAlert("Database Error", "Failed to load users.", e.getMessage());
+      protected List<String> call() throws Exception {
+        return usersTable.getRoles();
       }
     };
-    new Thread(task).start();
+    task.setOnSucceeded(e -> {
+      String selected = cmbRoleFilter.getValue();
+      ObservableList<String> filterRoles = FXCollections.observableArrayList(ALL_ROLES);
+      filterRoles.addAll(task.getValue());
+      cmbRoleFilter.setItems(filterRoles);
+      cmbRoleFilter.getSelectionModel().select(filterRoles.contains(selected) ? selected : ALL_ROLES);
+    });
+    Session.getAsyncService().submitLatest(this, "roles", task);
   }
 
   private void setupTableListeners() {
@@ -135,8 +178,9 @@ public class UserManagement {
       }
     });
 
-    searchField.textProperty().addListener((obs, oldVal, newVal) -> filterUsers());
-    cmbRoleFilter.valueProperty().addListener((obs, oldVal, newVal) -> filterUsers());
+    /* The role filter runs filterUsers through its onAction; typing waits for a pause */
+    searchDebounce.setOnFinished(e -> filterUsers());
+    searchField.textProperty().addListener((obs, oldVal, newVal) -> searchDebounce.playFromStart());
   }
 
   @FXML
@@ -157,8 +201,8 @@ public class UserManagement {
     txtEmail.setText(selectedUser.getEmail());
     cmbRole.getSelectionModel().select(selectedUser.getRole());
     chkActive.setSelected(selectedUser.isActive());
+    /* List rows don't carry the password; a blank field keeps the current one */
     pwdPassword.clear();
-    pwdPassword.setText(selectedUser.getPassword());
     pwdPassword.setPromptText("Enter new password to change or leave blank to keep current");
     pwdPassword.setDisable(false);
     formPane.setVisible(true);
@@ -196,7 +240,7 @@ public class UserManagement {
         showErrorAlert("Database Error", "Failed to delete user.", e.getMessage());
       }
     };
-    new Thread(task).start();
+    Session.getAsyncService().submit(task);
   }
 
   @FXML
@@ -250,7 +294,7 @@ public class UserManagement {
         showErrorAlert("Database Error", "Failed to save user.", e.getMessage());
       }
     };
-    new Thread(task).start();
+    Session.getAsyncService().submit(task);
   }
 
   @FXML
@@ -261,22 +305,17 @@ public class UserManagement {
     selectedUser = null;
   }
 
+  /**
+   * Runs the search for the current text and role filter in the database.
+   */
   @FXML
   private void filterUsers() {
-    if (filteredUserData == null) return;
-
-    String searchText = searchField.getText().toLowerCase().trim();
-    String roleFilter = cmbRoleFilter.getValue();
-
-    filteredUserData.setPredicate(user -> {
-      if (roleFilter != null && !roleFilter.equals("All") && !user.getRole().equals(roleFilter)) return false;
-      if (searchText.isEmpty()) return true;
-      String fullName = (user.getFirstName() + " " + user.getLastName()).toLowerCase();
-      String email = user.getEmail().toLowerCase();
-      return fullName.contains(searchText) || email.contains(searchText);
-    });
-
-    statusLabel.setText(String.format("Displaying %d of %d Users.", filteredUserData.size(), masterUserData.size()));
+    searchDebounce.stop();
+    String role = cmbRoleFilter.getValue();
+    searchText = searchField.getText() == null ? "" : searchField.getText();
+    roleFilter = role == null || role.equals(ALL_ROLES) ? null : role;
+    userQuery = new UserTable.Query().text(searchText).role(roleFilter);
+    loadUserData();
   }
 
   private void clearFormFields() {
@@ -335,4 +374,36 @@ public class UserManagement {
       alert.showAndWait();
     });
   }
+
+  /**
+   * One search as paged by pagedUsers. Words are matched as prefixes first, which the name
+   * and email indexes serve; only when nobody matches that way is the search widened to
+   * match the words anywhere. count() runs first on every reload and settles the form the
+   * pages then use.
+   */
+  private static final class UserSearch {
+    private final UserTable table;
+    private final UserTable.Query prefix;
+    private volatile UserTable.Query paged;
+
+    UserSearch(UserTable table, UserTable.Query prefix) {
+      this.table = table;
+      this.prefix = prefix;
+      this.paged = prefix;
+    }
+
+    int count() throws SQLException {
+      int count = table.count(prefix);
+      UserTable.Query widened = prefix.widened();
+      if (count == 0 && widened != null) {
+        paged = widened;
+        count = table.count(widened);
+      }
+      return count;
+    }
+
+    List<User> page(int afterId, int limit) throws SQLException {
+      return table.search(paged, afterId, limit);
+    }
+  }
 }
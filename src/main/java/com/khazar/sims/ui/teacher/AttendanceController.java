@@ -8,9 +8,9 @@ import java.util.stream.Collectors;
 
 import com.khazar.sims.core.Session;
 import com.khazar.sims.database.data.Attendance;
-import com.khazar.sims.database.data.Enrollment;
+import com.khazar.sims.database.data.AttendanceRosterEntry;
+import com.khazar.sims.database.data.AttendanceStatus;
 import com.khazar.sims.database.data.Schedule;
-import com.khazar.sims.database.data.User;
 
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
@@ -47,6 +47,8 @@ public class AttendanceController {
   private final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy");
 
   private boolean hasUnsavedChanges = false;
+  /* Schedule session the loaded sheet belongs to; saving writes to it without looking it up again */
+  private Integer loadedScheduleId = null;
   private List<LocalDate> cachedValidDates = new ArrayList<>();
 
   @FXML
@@ -69,9 +71,10 @@ public class AttendanceController {
       @Override
       protected void updateItem(AttendanceRecord record, boolean empty) {
         super.updateItem(record, empty);
-        getStyleClass().removeAll("present", "absent");
+        getStyleClass().removeAll("present", "absent", "unrecorded");
         if (record != null && !empty) {
-          getStyleClass().add(record.isPresent() ? "present" : "absent");
+          if (!record.isRecorded()) getStyleClass().add("unrecorded");
+          else getStyleClass().add(record.isPresent() ? "present" : "absent");
         }
       }
     });
@@ -133,7 +136,7 @@ public class AttendanceController {
     });
     task.setOnFailed(e -> updateStatus("Error loading courses: " + task.getException().getMessage(), "error"));
 
-    new Thread(task).start();
+    Session.getAsyncService().submitLatest(this, "courses", task);
   }
 
   private void loadCourseDatesAndAttendance() {
@@ -169,7 +172,7 @@ public class AttendanceController {
       loadAttendance();
     });
 
-    new Thread(task).start();
+    Session.getAsyncService().submitLatest(this, "dates", task);
   }
 
   /* ================= ATTENDANCE ================= */
@@ -179,38 +182,35 @@ public class AttendanceController {
     LocalDate date = dpAttendanceDate.getValue();
     if (selected == null || date == null) {
       attendanceRecords.clear();
+      loadedScheduleId = null;
       updateStatistics();
       return;
     }
 
-    Task<List<AttendanceRecord>> task = new Task<>() {
+    Task<SessionSheet> task = new Task<>() {
       @Override
-      protected List<AttendanceRecord> call() throws SQLException, NoScheduleException {
+      protected SessionSheet call() throws SQLException, NoScheduleException {
         Schedule schedule = Session.getScheduleTable().getByDate(selected.getCourseOfferingId(), date);
         if (schedule == null) throw new NoScheduleException("No class scheduled on " + formatDate(date));
 
-        List<Enrollment> enrollments = Session.getEnrollmentTable().getByOfferingId(selected.getCourseOfferingId());
-        List<Attendance> existing = Session.getAttendanceTable().getForSchedule(schedule.getId());
-
-        Map<Integer, Boolean> presentMap = existing.stream()
-            .collect(Collectors.toMap(Attendance::getStudentId, Attendance::isPresent));
-
+        /* Names and recorded status for every enrolled student in one query */
         List<AttendanceRecord> records = new ArrayList<>();
-        for (Enrollment e : enrollments) {
-          User user = Session.getUsersTable().getById(e.getStudentId());
+        for (AttendanceRosterEntry entry : Session.getAttendanceTable().getRosterForSchedule(schedule.getId())) {
           records.add(new AttendanceRecord(
-              user.getFirstName() + " " + user.getLastName(),
-              e.getStudentId(),
-              presentMap.getOrDefault(e.getStudentId(), false)
+              entry.getFullName(),
+              entry.getStudentId(),
+              entry.getStatus() == AttendanceStatus.PRESENT,
+              entry.getStatus() != AttendanceStatus.UNRECORDED
           ));
         }
-        return records;
+        return new SessionSheet(schedule.getId(), records);
       }
     };
 
     task.setOnRunning(e -> attendanceTable.setPlaceholder(new Label("Loading attendance...")));
     task.setOnSucceeded(e -> {
-      attendanceRecords.setAll(task.getValue());
+      loadedScheduleId = task.getValue().scheduleId;
+      attendanceRecords.setAll(task.getValue().records);
       attendanceRecords.forEach(r -> r.presentProperty().addListener((obs, o, n) -> markUnsaved()));
       hasUnsavedChanges = false;
       updateStatistics();
@@ -218,11 +218,12 @@ public class AttendanceController {
     });
     task.setOnFailed(e -> {
       attendanceRecords.clear();
+      loadedScheduleId = null;
       updateStatistics();
       attendanceTable.setPlaceholder(new Label("Select course and date to view attendance"));
     });
 
-    new Thread(task).start();
+    Session.getAsyncService().submitLatest(this, "sheet", task);
   }
 
   private void markUnsaved() {
@@ -237,21 +238,20 @@ public class AttendanceController {
     CourseOption selected = cmbCourse.getValue();
     LocalDate date = dpAttendanceDate.getValue();
 
-    if (selected == null || date == null || attendanceRecords.isEmpty()) {
+    if (selected == null || date == null || attendanceRecords.isEmpty() || loadedScheduleId == null) {
       showAlert("Validation Error", "Select course and date, ensure table is loaded.", Alert.AlertType.WARNING);
       return;
     }
 
+    /* Snapshot on the FX thread; the sheet may be reloaded while saving */
+    final int scheduleId = loadedScheduleId;
+    final List<Attendance> attendanceList = attendanceRecords.stream()
+        .map(r -> new Attendance(scheduleId, r.getStudentId(), r.isPresent()))
+        .collect(Collectors.toList());
+
     Task<Void> task = new Task<>() {
       @Override
-      protected Void call() throws SQLException, NoScheduleException {
-        Schedule schedule = Session.getScheduleTable().getByDate(selected.getCourseOfferingId(), date);
-        if (schedule == null) throw new NoScheduleException("No class scheduled on this date");
-
-        List<Attendance> attendanceList = attendanceRecords.stream()
-            .map(r -> new Attendance(schedule.getId(), r.getStudentId(), r.isPresent()))
-            .collect(Collectors.toList());
-
+      protected Void call() throws SQLException {
         Session.getAttendanceTable().saveAttendance(attendanceList);
         return null;
       }
@@ -260,13 +260,16 @@ public class AttendanceController {
     task.setOnRunning(e -> btnSave.setDisable(true));
     task.setOnSucceeded(e -> {
       hasUnsavedChanges = false;
+      if (loadedScheduleId != null && loadedScheduleId == scheduleId)
+        attendanceRecords.forEach(AttendanceRecord::markRecorded);
+      attendanceTable.refresh();
       btnSave.setDisable(false);
       updateSaveButtonState();
       showAlert("Success", "Attendance saved successfully!", Alert.AlertType.INFORMATION);
     });
     task.setOnFailed(e -> showAlert("Error", "Failed to save attendance: " + task.getException().getMessage(), Alert.AlertType.ERROR));
 
-    new Thread(task).start();
+    Session.getAsyncService().submit(task);
   }
 
   @FXML
@@ -328,18 +331,35 @@ public class AttendanceController {
     private final String studentName;
     private final int studentId;
     private final BooleanProperty present;
+    private boolean recorded;
 
-    public AttendanceRecord(String studentName, int studentId, boolean present) {
+    public AttendanceRecord(String studentName, int studentId, boolean present, boolean recorded) {
       this.studentName = studentName;
       this.studentId = studentId;
       this.present = new SimpleBooleanProperty(present);
+      this.recorded = recorded;
+      /* Any explicit mark counts as recorded from now on */
+      this.present.addListener((obs, o, n) -> this.recorded = true);
     }
 
     public String getStudentName() { return studentName; }
     public int getStudentId() { return studentId; }
     public boolean isPresent() { return present.get(); }
-    public void setPresent(boolean value) { present.set(value); }
+    public void setPresent(boolean value) { present.set(value); this.recorded = true; }
     public BooleanProperty presentProperty() { return present; }
+    public boolean isRecorded() { return recorded; }
+    public void markRecorded() { recorded = true; }
+  }
+
+  /* Result of loading a session: the resolved schedule id and its attendance sheet */
+  private static class SessionSheet {
+    private final int scheduleId;
+    private final List<AttendanceRecord> records;
+
+    SessionSheet(int scheduleId, List<AttendanceRecord> records) {
+      this.scheduleId = scheduleId;
+      this.records = records;
+    }
   }
 
   public static class CourseOption {
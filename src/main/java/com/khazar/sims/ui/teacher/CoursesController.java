@@ -8,13 +8,16 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 
 import com.khazar.sims.core.Session;
-import com.khazar.sims.database.data.Course;
+import com.khazar.sims.database.AsyncDao;
 import com.khazar.sims.database.data.CourseOffering;
 import com.khazar.sims.database.data.Semester;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for Teacher's Course Offerings View
@@ -80,7 +83,7 @@ public class CoursesController {
       courseTable.setPlaceholder(new Label("Failed to load courses. See logs for details."));
     });
 
-    new Thread(courseLoadTask).start();
+    Session.getAsyncService().submitLatest(this, "courses", courseLoadTask);
   }
 
   /**
@@ -90,27 +93,34 @@ public class CoursesController {
   private Task<List<CourseOfferingView>> createCourseLoadTask() {
     return new Task<>() {
       @Override
-      protected List<CourseOfferingView> call() throws SQLException {
+      protected List<CourseOfferingView> call() throws SQLException, InterruptedException {
         int teacherId = Session.getActiveUser().getId();
-        List<CourseOfferingView> courseViews = new ArrayList<>();
-        
-        List<CourseOffering> teacherOfferings = 
-          Session.getCourseOfferingTable().getByTeacherId(teacherId);
-
+        AsyncDao db = Session.getAsyncDao();
+
+        /* Offerings (joined with their course), semesters and counts are independent: run them together */
+        CompletableFuture<List<CourseOffering>> offeringsFuture =
+          db.supply(() -> Session.getCourseOfferingTable().getByTeacherId(teacherId));
+        CompletableFuture<Map<Integer, Semester>> semestersFuture =
+          db.table(Session.getSemesterTable()).getAll().thenApply(CoursesController::byId);
+        /* Counts for all offerings in one GROUP BY instead of loading every roster */
+        CompletableFuture<Map<Integer, Integer>> countsFuture =
+          db.supply(() -> Session.getEnrollmentTable().getEnrollmentCountsForTeacher(teacherId));
+
+        List<CourseOffering> teacherOfferings = AsyncDao.await(offeringsFuture);
+        Map<Integer, Semester> semesters = AsyncDao.await(semestersFuture);
+        Map<Integer, Integer> enrolledCounts = AsyncDao.await(countsFuture);
+
+        List<CourseOfferingView> courseViews = new ArrayList<>(teacherOfferings.size());
         for (CourseOffering offering : teacherOfferings) {
-          Course course = Session.getCourseTable().getById(offering.getCourseId());
-          Semester semester = Session.getSemesterTable().getById(offering.getSemesterId());
-          
-          int enrolledCount = 
-            Session.getEnrollmentTable().getByOfferingId(offering.getId()).size();
+          Semester semester = semesters.get(offering.getSemesterId());
 
           courseViews.add(new CourseOfferingView(
-            course.getCode(),
-            course.getName(),
+            offering.getCourseCode(),
+            offering.getCourseName(),
             offering.getSection(),
-            semester.getName(),
-            course.getCredits(),
-            enrolledCount,
+            semester != null ? semester.getName() : "",
+            offering.getCredits(),
+            enrolledCounts.getOrDefault(offering.getId(), 0),
             offering.getCapacity()
           ));
         }
@@ -119,6 +129,12 @@ public class CoursesController {
     };
   }
 
+  private static Map<Integer, Semester> byId(List<Semester> semesters) {
+    Map<Integer, Semester> map = new HashMap<>();
+    for (Semester semester : semesters) map.put(semester.getId(), semester);
+    return map;
+  }
+
   private void updateStatistics() {
     int totalCourses = offerings.size();
     int totalStudents = offerings.stream().mapToInt(CourseOfferingView::getEnrolledCount).sum();
@@ -1,72 +1,92 @@
 package com.khazar.sims.ui.teacher;
 
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
 
 import com.khazar.sims.core.Session;
-import com.khazar.sims.database.data.Course;
 import com.khazar.sims.database.data.CourseOffering;
-import com.khazar.sims.database.data.Grade;
-import com.khazar.sims.database.data.User;
+import com.khazar.sims.database.data.Gradebook;
 
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
-import javafx.scene.control.cell.PropertyValueFactory;
 
+/**
+ * Teacher gradebook: one row per enrolled student, one column per assessment,
+ * plus the student's total and percentage. Per-assessment averages are shown below the grid.
+ */
 public class GradesAssessmentController {
 
   @FXML private ComboBox<CourseOption> cmbCourse;
-  @FXML private TableView<Grade> gradesTable;
-
-  @FXML private TableColumn<Grade, Integer> colStudentId;
-  @FXML private TableColumn<Grade, String> colStudentName;
-  @FXML private TableColumn<Grade, String> colAssessment;
-  @FXML private TableColumn<Grade, Integer> colScore;
-  @FXML private TableColumn<Grade, Integer> colMaxScore;
-  @FXML private TableColumn<Grade, String> colDate;
+  /* Rows are student indices into the current Gradebook; cells read its score matrix */
+  @FXML private TableView<Integer> gradesTable;
 
+  @FXML private Label lblTotalStudents;
+  @FXML private Label lblAverages;
   @FXML private Label statusLabel;
 
-  private final ObservableList<Grade> gradeEntries = FXCollections.observableArrayList();
+  /* Gradebooks already loaded in this view, so switching back to a course shows it at once */
+  private final Map<Integer, Gradebook> gradebooks = new HashMap<>();
 
   @FXML
   public void initialize() {
-    setupTable();
-    loadCoursesAsync();
-  }
-
-  private void setupTable() {
-    colStudentId.setCellValueFactory(new PropertyValueFactory<>("studentId"));
-    colAssessment.setCellValueFactory(new PropertyValueFactory<>("assessmentName"));
-    colScore.setCellValueFactory(new PropertyValueFactory<>("score"));
-    colMaxScore.setCellValueFactory(new PropertyValueFactory<>("maxScore"));
-    colDate.setCellValueFactory(new PropertyValueFactory<>("dateSubmitted"));
-
-    colStudentName.setCellValueFactory(cell -> {
-      int studentId = cell.getValue().getStudentId();
-      return new javafx.beans.property.SimpleStringProperty(getStudentName(studentId));
-    });
-
-    gradesTable.setItems(gradeEntries);
     gradesTable.setEditable(false);
     gradesTable.setPlaceholder(new Label("Select a course to view exam results"));
+    loadCoursesAsync();
   }
 
-  private String getStudentName(int studentId) {
-    try {
-      User u = Session.getUsersTable().getById(studentId);
-      return u.getFirstName() + " " + u.getLastName();
+  /* ---------- Grid ---------- */
+
+  /**
+   * Rebuilds the columns for the gradebook's assessments and shows its rows.
+   * Cells are computed from the matrix when the TableView renders them.
+   */
+  private void showGradebook(Gradebook book) {
+    List<TableColumn<Integer, ?>> columns = new ArrayList<>();
+    columns.add(column("ID", 70, row -> book.getStudentId(row)));
+    columns.add(column("Student Name", 220, row -> book.getStudentName(row)));
+    for (int col = 0; col < book.getAssessmentCount(); col++) {
+      final int c = col;
+      String title = book.getAssessmentName(c) + " (/" + book.getMaxScore(c) + ")";
+      columns.add(column(title, 110, row -> {
+        int score = book.getScore(row, c);
+        return score == Gradebook.MISSING ? "–" : String.valueOf(score);
+      }));
     }
-    catch (SQLException e) {
-      return "Unknown";
+    columns.add(column("Total", 80, row -> book.getTotal(row)));
+    columns.add(column("%", 80, row -> formatDecimal(book.getPercentage(row))));
+    gradesTable.getColumns().setAll(columns);
+
+    List<Integer> rows = new ArrayList<>(book.getStudentCount());
+    for (int row = 0; row < book.getStudentCount(); row++) rows.add(row);
+    gradesTable.getItems().setAll(rows);
+
+    lblTotalStudents.setText("Students: " + book.getStudentCount());
+    StringBuilder averages = new StringBuilder("Averages: ");
+    for (int col = 0; col < book.getAssessmentCount(); col++) {
+      if (col > 0) averages.append("  |  ");
+      averages.append(book.getAssessmentName(col)).append(' ').append(formatDecimal(book.getAverage(col)));
     }
+    lblAverages.setText(book.getAssessmentCount() == 0 ? "No assessments yet" : averages.toString());
+  }
+
+  private static <V> TableColumn<Integer, V> column(String title, double width, IntFunction<V> value) {
+    TableColumn<Integer, V> column = new TableColumn<>(title);
+    column.setPrefWidth(width);
+    column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
+    return column;
+  }
+
+  private static String formatDecimal(double value) {
+    return Double.isNaN(value) ? "–" : String.format("%.1f", value);
   }
 
   private void loadCoursesAsync() {
@@ -77,14 +97,10 @@ public class GradesAssessmentController {
       protected List<CourseOption> call() throws Exception {
         int teacherId = Session.getActiveUser().getId();
         List<CourseOffering> offerings = Session.getCourseOfferingTable().getByTeacherId(teacherId);
-        return offerings.stream().map(offering -> {
-          try {
-            Course course = Session.getCourseTable().getById(offering.getCourseId());
-            return new CourseOption(offering.getId(), course.getCode() + " - " + course.getName());
-          } catch (SQLException e) {
-            return new CourseOption(offering.getId(), "Unknown");
-          }
-        }).toList();
+        /* Offerings come joined with their course, no per-offering lookup needed */
+        return offerings.stream()
+          .map(offering -> new CourseOption(offering.getId(), offering.getCourseCode() + " - " + offering.getCourseName()))
+          .toList();
       }
     };
 
@@ -103,32 +119,40 @@ public class GradesAssessmentController {
       updateStatus("Failed to load courses: " + task.getException().getMessage(), "error");
     });
 
-    new Thread(task).start();
+    Session.getAsyncService().submitLatest(this, "courses", task);
   }
 
   private void loadGradesAsync() {
     CourseOption selected = cmbCourse.getValue();
     if (selected == null) return;
 
-    updateStatus("Loading grades...", "success");
+    /* Show the last known gradebook immediately, then refresh it in the background */
+    Gradebook cached = gradebooks.get(selected.offeringId);
+    if (cached != null) {
+      showGradebook(cached);
+    }
+    updateStatus(cached != null ? "Refreshing grades..." : "Loading grades...", "success");
 
-    Task<List<Grade>> task = new Task<>() {
+    Task<Gradebook> task = new Task<>() {
       @Override
-      protected List<Grade> call() throws Exception {
-        return Session.getGradeTable().getByOfferingId(selected.offeringId);
+      protected Gradebook call() throws Exception {
+        return Session.getGradeTable().getGradebook(selected.offeringId);
       }
     };
 
     task.setOnSucceeded(e -> {
-      gradeEntries.setAll(task.getValue());
-      updateStatus("Loaded " + task.getValue().size() + " exam records", "success");
+      Gradebook book = task.getValue();
+      gradebooks.put(book.getOfferingId(), book);
+      showGradebook(book);
+      updateStatus("Loaded " + book.getStudentCount() + " students, "
+        + book.getAssessmentCount() + " assessments", "success");
     });
 
     task.setOnFailed(e -> {
       updateStatus("Failed to load assessments: " + task.getException().getMessage(), "error");
     });
 
-    new Thread(task).start();
+    Session.getAsyncService().submitLatest(this, "grades", task);
   }
 
   private void updateStatus(String message, String type) {
@@ -1,15 +1,18 @@
 package com.khazar.sims.ui.teacher;
 
 import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import com.khazar.sims.core.ParallelLoad;
 import com.khazar.sims.core.Session;
-import com.khazar.sims.database.data.Course;
-import com.khazar.sims.database.data.CourseOffering;
-import com.khazar.sims.database.data.Schedule;
+import com.khazar.sims.database.data.TimetableEntry;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -58,26 +61,18 @@ public class ScheduleController {
   private void loadScheduleAsync() {
     Task<List<ScheduleView>> task = new Task<>() {
       @Override
-      protected List<ScheduleView> call() throws SQLException {
+      protected List<ScheduleView> call() throws SQLException, InterruptedException {
         int teacherId = Session.getActiveUser().getId();
-        List<ScheduleView> views = new ArrayList<>();
-
-        for (CourseOffering offering : Session.getCourseOfferingTable().getByTeacherId(teacherId)) {
-          Course course = Session.getCourseTable().getById(offering.getCourseId());
-          int enrolledCount = Session.getEnrollmentTable().getByOfferingId(offering.getId()).size();
-
-          for (Schedule schedule : Session.getScheduleTable().getSchedulesForOffering(offering.getId())) {
-            views.add(new ScheduleView(
-                schedule.getDayOfWeek(),
-                formatTime(schedule.getStartTime(), schedule.getEndTime()),
-                course.getCode() + " - " + course.getName(),
-                offering.getSection(),
-                schedule.getRoom(),
-                enrolledCount
-            ));
-          }
-        }
-        return views;
+        /* Current week; rows arrive sorted by day and start time */
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+        return ParallelLoad.run(fork -> {
+          Supplier<Map<Integer, Integer>> counts = fork.query(() ->
+            Session.getEnrollmentTable().getEnrollmentCountsForTeacher(teacherId));
+          Supplier<List<TimetableEntry>> timetable = fork.query(() ->
+            Session.getScheduleTable().getTeacherTimetable(teacherId, monday, monday.plusDays(6)));
+          return () -> toViews(timetable.get(), counts.get());
+        });
       }
     };
 
@@ -88,7 +83,6 @@ public class ScheduleController {
 
     task.setOnSucceeded(e -> {
       scheduleItems.setAll(task.getValue());
-      sortSchedule();
       updateStatistics();
       updateStatus("Schedule loaded - " + scheduleItems.size() + " classes", "success");
     });
@@ -99,32 +93,28 @@ public class ScheduleController {
       System.err.println("Schedule load failed: " + (ex != null ? ex.getMessage() : "Unknown"));
     });
 
-    new Thread(task).start();
+    Session.getAsyncService().submitLatest(this, "schedule", task);
   }
 
-  private void sortSchedule() {
-    scheduleItems.sort(Comparator
-        .comparingInt((ScheduleView s) -> getDayOrder(s.getDayOfWeek()))
-        .thenComparing(ScheduleView::getTimeRange));
+  private List<ScheduleView> toViews(List<TimetableEntry> timetable, Map<Integer, Integer> enrolledCounts) {
+    List<ScheduleView> views = new ArrayList<>(timetable.size());
+    for (TimetableEntry entry : timetable) {
+      views.add(new ScheduleView(
+          entry.getDayOfWeek(),
+          formatTime(entry.getStartTime(), entry.getEndTime()),
+          entry.getCourseCode() + " - " + entry.getCourseName(),
+          entry.getSection(),
+          entry.getRoom(),
+          enrolledCounts.getOrDefault(entry.getCourseOfferingId(), 0)
+      ));
+    }
+    return views;
   }
 
   private String formatTime(LocalTime start, LocalTime end) {
     return start.format(TIME_FORMATTER) + " - " + end.format(TIME_FORMATTER);
   }
 
-  private int getDayOrder(String day) {
-    return switch (day.toUpperCase(Locale.ROOT)) {
-      case "MON" -> 1;
-      case "TUE" -> 2;
-      case "WED" -> 3;
-      case "THU" -> 4;
-      case "FRI" -> 5;
-      case "SAT" -> 6;
-      case "SUN" -> 7;
-      default -> 8;
-    };
-  }
-
   private void updateStatistics() {
     int totalClasses = scheduleItems.size();
     lblTotalClasses.setText(String.valueOf(totalClasses));
@@ -1,16 +1,16 @@
 package com.khazar.sims.ui.teacher;
 
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import com.khazar.sims.core.SearchIndex;
 import com.khazar.sims.core.Session;
 import com.khazar.sims.database.data.Course;
 import com.khazar.sims.database.data.CourseOffering;
-import com.khazar.sims.database.data.Department;
-import com.khazar.sims.database.data.Enrollment;
-import com.khazar.sims.database.data.Student;
-import com.khazar.sims.database.data.User;
+import com.khazar.sims.database.data.RosterEntry;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -42,6 +42,9 @@ public class StudentsController {
 
   private final ObservableList<StudentView> allStudents = FXCollections.observableArrayList();
   private final ObservableList<StudentView> filteredStudents = FXCollections.observableArrayList();
+  private final SearchIndex<StudentView> studentIndex = new SearchIndex<>(s -> new String[] {
+    String.valueOf(s.getUserId()), s.getFirstName(), s.getLastName(), s.getEmail(), s.getDepartment()
+  });
 
   @FXML
   public void initialize() {
@@ -89,7 +92,7 @@ public class StudentsController {
       System.err.println("Course load failed: " + e.getSource().getException().getMessage());
     });
 
-    new Thread(courseLoadTask).start();
+    Session.getAsyncService().submitLatest(this, "courses", courseLoadTask);
   }
 
   private Task<List<CourseOption>> createCourseLoadTask() {
@@ -119,6 +122,7 @@ public class StudentsController {
     CourseOption selected = cmbCourse.getValue();
     if (selected == null) {
       allStudents.clear();
+      studentIndex.setItems(allStudents);
       applyFilters();
       return;
     }
@@ -129,6 +133,7 @@ public class StudentsController {
 
     studentLoadTask.setOnSucceeded(e -> {
       allStudents.setAll(studentLoadTask.getValue());
+      studentIndex.setItems(allStudents);
       applyFilters();
       updateStatus("Loaded " + allStudents.size() + " students", "success");
     });
@@ -138,7 +143,7 @@ public class StudentsController {
       System.err.println("Student load failed: " + e);
     });
 
-    new Thread(studentLoadTask).start();
+    Session.getAsyncService().submitLatest(this, "roster", studentLoadTask);
   }
 
   private Task<List<StudentView>> createStudentLoadTask(int offeringId) {
@@ -147,19 +152,14 @@ public class StudentsController {
       protected List<StudentView> call() throws SQLException {
         List<StudentView> studentViews = FXCollections.observableArrayList();
         
-        List<Enrollment> enrollments = Session.getEnrollmentTable().getByOfferingId(offeringId);
-
-        for (Enrollment enrollment : enrollments) {
-          Student student = Session.getStudentTable().getByUserId(enrollment.getStudentId());
-          User user = Session.getUsersTable().getById(student.getUserId());
-          Department dept = Session.getDepartmentTable().getById(student.getDepartmentId());
-
+        /* One joined query instead of student + user + department lookups per row */
+        for (RosterEntry entry : Session.getEnrollmentTable().getRoster(offeringId)) {
           studentViews.add(new StudentView(
-            user.getId(),
-            user.getFirstName(),
-            user.getLastName(),
-            user.getEmail(),
-            dept.getName()
+            entry.getStudentId(),
+            entry.getFirstName(),
+            entry.getLastName(),
+            entry.getEmail(),
+            entry.getDepartmentName() != null ? entry.getDepartmentName() : ""
           ));
         }
         return studentViews;
@@ -168,28 +168,33 @@ public class StudentsController {
   }
 
   private void applyFilters() {
-    String search = txtSearch.getText() == null
-      ? ""
-      : txtSearch.getText().toLowerCase().trim();
+    String search = txtSearch.getText();
 
-    if (search.isEmpty()) {
+    if (search == null || search.isBlank()) {
       filteredStudents.setAll(allStudents);
     }
     else {
-      filteredStudents.setAll(
-        allStudents.stream().filter(s ->
-          String.valueOf(s.getUserId()).contains(search) ||
-          s.getFirstName().toLowerCase().contains(search) ||
-          s.getLastName().toLowerCase().contains(search) ||
-          s.getEmail().toLowerCase().contains(search) ||
-          s.getDepartment().toLowerCase().contains(search)
-        ).toList()
-      );
+      List<StudentView> matches = studentIndex.search(search);
+      filteredStudents.setAll(matches.isEmpty() ? similarStudents(search) : matches);
     }
 
     updateStatistics();
   }
 
+  /**
+   * Students of this course whose name or email resembles the search (typos, Azerbaijani letters
+   * typed without accents), best match first, from the application-wide user index.
+   */
+  private List<StudentView> similarStudents(String search) {
+    Map<Integer, StudentView> byId = new HashMap<>();
+    for (StudentView student : allStudents) byId.put(student.getUserId(), student);
+
+    return Session.getUserIndex().search(search, byId.size(), user -> byId.containsKey(user.getId()))
+      .stream()
+      .map(user -> byId.get(user.getId()))
+      .toList();
+  }
+
   private void updateStatistics() {
     lblTotalStudents.setText(String.valueOf(filteredStudents.size()));
   }
@@ -0,0 +1,11 @@
+-- Secondary indexes for the predicates the DAO layer filters and joins on.
+--
+-- Single-column lookups on a foreign key (attendances.student_id, enrollments.student_id,
+-- course_offerings.teacher_id) already use the index InnoDB creates for the constraint,
+-- so only composite indexes are declared here.
+
+-- Timetables and attendance dates: WHERE offering_id = ? [AND date ...]
+CREATE INDEX idx_schedules_offering_date ON schedules (offering_id, date);
+
+-- Gradebook columns: WHERE offering_id = ? [AND assessment_name = ?]
+CREATE INDEX idx_assessments_offering_name ON assessments (offering_id, assessment_name);
@@ -0,0 +1,10 @@
+-- Indexes for the admin user search (UserTable.search).
+
+-- Name prefix matches and ORDER BY last_name, first_name
+CREATE INDEX idx_users_last_first ON users (last_name, first_name);
+CREATE INDEX idx_users_first_name ON users (first_name);
+
+-- Role and active filters, and the role list: WHERE role = ? [AND is_active = ?]
+CREATE INDEX idx_users_role_active ON users (role, is_active);
+
+-- Email prefixes use the existing UNIQUE index on email.
@@ -0,0 +1,94 @@
+package com.khazar.sims.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FuzzyIndexTest {
+  private record Person(int id, String name, String email, String role) {}
+
+  private static final Person MAMMADOV = new Person(1, "Elvin Məmmədov", "elvin.m@khazar.org", "STUDENT");
+  private static final Person JOHN = new Person(2, "John Smith", "john.smith@khazar.org", "TEACHER");
+  private static final Person ALIYEVA = new Person(3, "Aysel Əliyeva", "aysel.a@khazar.org", "STUDENT");
+
+  private FuzzyIndex<Person> index;
+
+  @BeforeEach
+  void setUp() {
+    index = new FuzzyIndex<>(Person::id, person -> new String[] { person.name(), person.email() });
+    index.put(MAMMADOV);
+    index.put(JOHN);
+    index.put(ALIYEVA);
+  }
+
+  @Test
+  void foldMapsAzerbaijaniLettersAndAccents() {
+    assertEquals("memmedov", FuzzyIndex.fold("Məmmədov"));
+    assertEquals("isiq", FuzzyIndex.fold("Işıq"));
+    assertEquals("ogrenci", FuzzyIndex.fold("Öğrenci"));
+    assertEquals("cay", FuzzyIndex.fold("Çay"));
+  }
+
+  @Test
+  void findsSpellingsWithoutAzerbaijaniLetters() {
+    assertEquals(MAMMADOV, first("Mammadov"));
+    assertEquals(MAMMADOV, first("Memmedov"));
+  }
+
+  @Test
+  void findsTransposedLetters() {
+    assertEquals(JOHN, first("Jhon Smith"));
+  }
+
+  @Test
+  void findsPartialEmails() {
+    assertEquals(JOHN, first("john.smi"));
+  }
+
+  @Test
+  void unrelatedQueriesFindNothing() {
+    assertTrue(index.search("Zzyzx", 5).isEmpty());
+  }
+
+  @Test
+  void filterRestrictsTheCandidates() {
+    assertTrue(index.search("Jhon Smith", 5, person -> person.role().equals("STUDENT")).isEmpty());
+  }
+
+  @Test
+  void putReplacesTheRowWithTheSameId() {
+    index.put(new Person(2, "Leyla Karimova", "leyla.k@khazar.org", "TEACHER"));
+
+    assertEquals(3, index.size());
+    assertTrue(index.search("Jhon Smith", 5).isEmpty());
+    assertEquals(2, first("Leila Kerimova").id());
+  }
+
+  @Test
+  void removedRowsAreNotFound() {
+    index.remove(1);
+
+    assertEquals(2, index.size());
+    assertTrue(index.search("Mammadov", 5).stream().noneMatch(person -> person.id() == 1));
+  }
+
+  @Test
+  void limitCapsTheResults() {
+    index.put(new Person(4, "Elvin Mammadli", "elvin.md@khazar.org", "STUDENT"));
+
+    assertEquals(2, index.search("Elvin", 5).size());
+    assertEquals(1, index.search("Elvin", 1).size());
+    assertTrue(index.search("Elvin", 0).isEmpty());
+  }
+
+  private Person first(String query) {
+    List<Person> found = index.search(query, 5);
+    assertFalse(found.isEmpty(), "no match for " + query);
+    return found.get(0);
+  }
+}
@@ -0,0 +1,74 @@
+package com.khazar.sims.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SearchIndexTest {
+  private record Person(String name, String email) {}
+
+  private static final Person JOHN = new Person("John Smith", "smith.j@khazar.org");
+  private static final Person JANE = new Person("Jane Doe", "jane.doe@khazar.org");
+  private static final Person JOAN = new Person("Joan Smithers", null);
+
+  private SearchIndex<Person> index;
+
+  @BeforeEach
+  void setUp() {
+    index = new SearchIndex<>(person -> new String[] { person.name(), person.email() });
+    index.setItems(List.of(JOHN, JANE, JOAN));
+  }
+
+  @Test
+  void blankQueryMatchesEveryRowInOrder() {
+    assertEquals(List.of(JOHN, JANE, JOAN), search(""));
+    assertEquals(List.of(JOHN, JANE, JOAN), search(null));
+  }
+
+  @Test
+  void everyQueryWordMustStartSomeWordOfTheRow() {
+    assertEquals(List.of(JOHN, JOAN), search("jo sm"));
+    assertEquals(List.of(JOHN), search("joh sm"));
+    assertEquals(List.of(JOHN, JOAN), search("smith"));
+    assertEquals(List.of(), search("ohn"));
+  }
+
+  @Test
+  void emailPartsAreWords() {
+    assertEquals(List.of(JANE), search("doe@khazar"));
+    assertEquals(List.of(JOHN, JANE), search("khazar"));
+  }
+
+  @Test
+  void searchIsCaseInsensitive() {
+    assertEquals(List.of(JANE), search("JANE"));
+  }
+
+  @Test
+  void typingOnNarrowsThePreviousMatches() {
+    assertEquals(List.of(JOHN, JANE, JOAN), search("j"));
+    assertEquals(List.of(JOHN, JOAN), search("jo"));
+    assertEquals(List.of(JOAN), search("joa"));
+    /* Deleting characters searches again instead of narrowing */
+    assertEquals(List.of(JOHN, JANE, JOAN), search("j"));
+  }
+
+  @Test
+  void setItemsReplacesTheIndexedRows() {
+    search("jo");
+
+    index.setItems(List.of(JANE));
+
+    assertEquals(List.of(), search("jo"));
+    assertEquals(List.of(JANE), search("ja"));
+  }
+
+  /* Results are reused by the next call, so copy them */
+  private List<Person> search(String query) {
+    return new ArrayList<>(index.search(query));
+  }
+}
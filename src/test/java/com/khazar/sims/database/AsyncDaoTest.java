@@ -0,0 +1,154 @@
+package com.khazar.sims.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.khazar.sims.core.AsyncService;
+
+class AsyncDaoTest {
+  private final AsyncService service = new AsyncService(2);
+  private final AsyncDao dao = new AsyncDao(service);
+
+  @AfterEach
+  void tearDown() {
+    service.shutdown();
+  }
+
+  @Test
+  void awaitReturnsTheResult() throws Exception {
+    assertEquals(42, AsyncDao.await(dao.supply(() -> 42)));
+  }
+
+  @Test
+  void awaitRethrowsTheOriginalSqlException() {
+    SQLException failure = new SQLException("table missing");
+
+    SQLException thrown = assertThrows(SQLException.class, () -> AsyncDao.await(dao.supply(() -> {
+      throw failure;
+    })));
+    assertSame(failure, thrown);
+  }
+
+  @Test
+  void cancellingTheFutureCancelsTheCallsContext() throws Exception {
+    AtomicReference<QueryContext> seen = new AtomicReference<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CompletableFuture<Void> future = dao.run(() -> {
+      seen.set(QueryContext.current());
+      started.countDown();
+      waitUntilCancelled(seen.get());
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    future.cancel(true);
+
+    waitUntilCancelled(seen.get());
+    assertTrue(seen.get().isCancelled());
+  }
+
+  @Test
+  void cancellingTheCallerCancelsItsCalls() throws Exception {
+    QueryContext caller = new QueryContext();
+    AtomicReference<QueryContext> seen = new AtomicReference<>();
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicReference<CompletableFuture<Void>> future = new AtomicReference<>();
+    caller.runWith(() -> future.set(dao.run(() -> {
+      seen.set(QueryContext.current());
+      started.countDown();
+      waitUntilCancelled(seen.get());
+    })));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertNotSame(caller, seen.get());
+
+    caller.cancel();
+
+    future.get().get(5, TimeUnit.SECONDS);
+    assertTrue(seen.get().isCancelled());
+  }
+
+  @Test
+  void aCallCancelledBeforeItStartsNeverRuns() throws Exception {
+    AsyncService one = new AsyncService(1);
+    AsyncDao single = new AsyncDao(one);
+    try {
+      CountDownLatch release = new CountDownLatch(1);
+      CompletableFuture<Void> blocker = single.run(() -> await(release));
+      AtomicBoolean ran = new AtomicBoolean(false);
+      CompletableFuture<Void> queued = single.run(() -> ran.set(true));
+
+      queued.cancel(false);
+      release.countDown();
+      blocker.get(5, TimeUnit.SECONDS);
+      single.run(() -> {}).get(5, TimeUnit.SECONDS); /* the permit went round once more */
+
+      assertFalse(ran.get());
+    }
+    finally {
+      one.shutdown();
+    }
+  }
+
+  @Test
+  void awaitingWhileHoldingTheLastPermitLendsItOut() throws Exception {
+    AsyncService one = new AsyncService(1);
+    AsyncDao single = new AsyncDao(one);
+    try {
+      /* like a controller task running on the service */
+      one.acquirePermit();
+      try {
+        assertEquals(7, AsyncDao.await(single.supply(() -> 7)));
+      }
+      finally {
+        one.releasePermit();
+      }
+    }
+    finally {
+      one.shutdown();
+    }
+  }
+
+  private static void waitUntilCancelled(QueryContext context) throws SQLException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!context.isCancelled()) {
+      if (System.nanoTime() > deadline)
+        throw new SQLException("not cancelled in time");
+      sleep();
+    }
+  }
+
+  /* Parks rather than spins, so a waiting call does not hold a carrier thread */
+  private static void sleep() throws SQLException {
+    try {
+      Thread.sleep(1);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException(e);
+    }
+  }
+
+  private static void await(CountDownLatch latch) throws SQLException {
+    try {
+      if (!latch.await(5, TimeUnit.SECONDS))
+        throw new SQLException("not released in time");
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException(e);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.khazar.sims.database;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void addedKeysAreAlwaysFound() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) filter.add("user" + i + "@khazar.org");
+
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("user" + i + "@khazar.org"));
+    }
+  }
+
+  @Test
+  void emptyFilterContainsNothing() {
+    BloomFilter filter = new BloomFilter(100, 0.01);
+
+    assertFalse(filter.mightContain("anyone@khazar.org"));
+    assertFalse(filter.mightContain(""));
+  }
+
+  @Test
+  void falsePositiveRateStaysNearTheTarget() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) filter.add("user" + i + "@khazar.org");
+
+    int falsePositives = 0;
+    int probes = 100_000;
+    for (int i = 0; i < probes; i++) {
+      if (filter.mightContain("absent" + i + "@example.com")) falsePositives++;
+    }
+
+    /* 1% target; allow generous slack so the test is not flaky */
+    assertTrue(falsePositives < probes * 0.02, "false positives: " + falsePositives);
+  }
+
+  @Test
+  void concurrentAddsAreNotLost() throws InterruptedException {
+    BloomFilter filter = new BloomFilter(40_000, 0.01);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int thread = t;
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (int i = 0; i < 10_000; i++) filter.add(thread + ":" + i);
+      }));
+    }
+    for (Thread thread : threads) thread.join();
+
+    for (int t = 0; t < 4; t++) {
+      for (int i = 0; i < 10_000; i++) {
+        assertTrue(filter.mightContain(t + ":" + i));
+      }
+    }
+  }
+
+  @Test
+  void rejectsInvalidSizing() {
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+  }
+}
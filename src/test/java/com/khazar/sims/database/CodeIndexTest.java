@@ -0,0 +1,128 @@
+package com.khazar.sims.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CodeIndexTest {
+  private record Dept(int id, int facultyId, String code) {}
+
+  private static CodeIndex<Dept> global() {
+    return new CodeIndex<>(Dept::id, Dept::code);
+  }
+
+  private static CodeIndex<Dept> scoped() {
+    return new CodeIndex<>(Dept::id, Dept::facultyId, Dept::code);
+  }
+
+  @Test
+  void getIgnoresCaseAndSurroundingSpace() throws SQLException {
+    CodeIndex<Dept> index = global();
+    Dept cs = new Dept(1, 0, "CS");
+    index.load(() -> List.of(cs, new Dept(2, 0, "MATH")));
+
+    assertTrue(index.isLoaded());
+    assertSame(cs, index.get(" cs "));
+    assertNull(index.get("PHYS"));
+    assertNull(index.get(null));
+  }
+
+  @Test
+  void completeReturnsPrefixMatchesInCodeOrder() throws SQLException {
+    CodeIndex<Dept> index = global();
+    index.load(() -> List.of(new Dept(1, 0, "CS201"), new Dept(2, 0, "CS101"), new Dept(3, 0, "MATH101")));
+
+    assertEquals(List.of(2, 1), ids(index.complete("cs", 10)));
+    assertEquals(List.of(2), ids(index.complete("cs", 1)));
+    assertEquals(List.of(), ids(index.complete("X", 10)));
+  }
+
+  @Test
+  void codesAreUniqueOnlyWithinTheirScope() throws SQLException {
+    CodeIndex<Dept> index = scoped();
+    index.load(() -> List.of(new Dept(1, 10, "CS"), new Dept(2, 20, "CS"), new Dept(3, 20, "CE")));
+
+    assertEquals(1, index.get(10, "CS").id());
+    assertEquals(2, index.get(20, "cs").id());
+    assertNull(index.get(30, "CS"));
+    assertEquals(List.of(3, 2), ids(index.complete(20, "C", 10)));
+    assertEquals(List.of(3, 1, 2), ids(index.complete("C", 10)));
+  }
+
+  @Test
+  void putMovesARowToItsNewCode() {
+    CodeIndex<Dept> index = global();
+    index.put(new Dept(1, 0, "CS"));
+
+    index.onUpdated(new Dept(1, 0, "CSE"));
+
+    assertNull(index.get("CS"));
+    assertEquals(1, index.get("CSE").id());
+  }
+
+  @Test
+  void removeDropsOnlyThatRow() {
+    CodeIndex<Dept> index = scoped();
+    index.put(new Dept(1, 10, "CS"));
+    index.put(new Dept(2, 20, "CS"));
+
+    index.onDeleted(1);
+
+    assertNull(index.get(10, "CS"));
+    assertEquals(2, index.get(20, "CS").id());
+  }
+
+  @Test
+  void writesDuringALoadAreReplayedOverItsRows() throws SQLException {
+    CodeIndex<Dept> index = global();
+    index.load(() -> {
+      /* Another thread writes while the rows are being read; the read saw the old state */
+      index.put(new Dept(3, 0, "NEW"));
+      index.put(new Dept(1, 0, "CS2"));
+      index.remove(2);
+      return List.of(new Dept(1, 0, "CS"), new Dept(2, 0, "GONE"));
+    });
+
+    assertEquals(3, index.get("NEW").id());
+    assertEquals(1, index.get("CS2").id());
+    assertNull(index.get("CS"));
+    assertNull(index.get("GONE"));
+  }
+
+  @Test
+  void aFailedLoadLeavesTheIndexUnloaded() {
+    CodeIndex<Dept> index = global();
+
+    assertThrows(SQLException.class, () -> index.load(() -> {
+      throw new SQLException("connection lost");
+    }));
+    assertFalse(index.isLoaded());
+  }
+
+  @Test
+  void manyInsertsStaySorted() {
+    CodeIndex<Dept> index = global();
+    for (int i = 99; i >= 0; i--) {
+      index.put(new Dept(i, 0, String.format("C%02d", i)));
+    }
+
+    List<Dept> all = index.complete("C", 200);
+
+    assertEquals(100, all.size());
+    for (int i = 0; i < all.size(); i++) {
+      assertEquals(i, all.get(i).id());
+    }
+  }
+
+  private static List<Integer> ids(List<Dept> rows) {
+    return rows.stream().map(Dept::id).toList();
+  }
+}
@@ -0,0 +1,135 @@
+package com.khazar.sims.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolTest {
+  private static final long HOUR = 60 * 60_000;
+
+  /* Opens fake physical connections and remembers them */
+  private static final class Factory implements ConnectionPool.ConnectionFactory {
+    final List<AtomicBoolean> closed = new ArrayList<>();
+    boolean valid = true;
+    boolean failNext = false;
+
+    @Override
+    public Connection create() throws SQLException {
+      if (failNext) {
+        failNext = false;
+        throw new SQLException("Communications link failure");
+      }
+      AtomicBoolean isClosed = new AtomicBoolean(false);
+      closed.add(isClosed);
+      return (Connection) Proxy.newProxyInstance(
+        ConnectionPoolTest.class.getClassLoader(), new Class<?>[] { Connection.class },
+        (proxy, method, args) -> switch (method.getName()) {
+          case "close" -> {
+            isClosed.set(true);
+            yield null;
+          }
+          case "isClosed" -> isClosed.get();
+          case "isValid" -> valid;
+          case "getAutoCommit" -> true;
+          case "clearWarnings" -> null;
+          case "hashCode" -> System.identityHashCode(proxy);
+          case "equals" -> proxy == args[0];
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+  }
+
+  private static ConnectionPool pool(Factory factory, int maxSize, long validationIntervalMillis) {
+    return new ConnectionPool(factory, maxSize, 50, validationIntervalMillis, HOUR, 0);
+  }
+
+  @Test
+  void returnedConnectionsAreReused() throws SQLException {
+    Factory factory = new Factory();
+    ConnectionPool pool = pool(factory, 2, HOUR);
+
+    pool.borrow().close();
+    pool.borrow().close();
+
+    assertEquals(1, factory.closed.size());
+    assertFalse(factory.closed.get(0).get());
+    assertEquals(1, pool.getStats().getIdleConnections());
+  }
+
+  @Test
+  void borrowTimesOutWhenEveryConnectionIsInUse() throws SQLException {
+    ConnectionPool pool = pool(new Factory(), 1, HOUR);
+    Connection held = pool.borrow();
+
+    assertThrows(SQLException.class, pool::borrow);
+    assertEquals(1, pool.getStats().getTimeoutCount());
+
+    held.close();
+    pool.borrow().close();
+  }
+
+  @Test
+  void closingAHandleTwiceReturnsItOnce() throws SQLException {
+    ConnectionPool pool = pool(new Factory(), 1, HOUR);
+    Connection connection = pool.borrow();
+
+    connection.close();
+    connection.close();
+    Connection next = pool.borrow();
+
+    assertTrue(connection.isClosed());
+    assertThrows(SQLException.class, pool::borrow);
+    next.close();
+  }
+
+  @Test
+  void aFailedConnectGivesThePermitBack() throws SQLException {
+    Factory factory = new Factory();
+    ConnectionPool pool = pool(factory, 1, HOUR);
+    factory.failNext = true;
+
+    assertThrows(SQLException.class, pool::borrow);
+
+    pool.borrow().close();
+  }
+
+  @Test
+  void idleConnectionsFailingValidationAreReplaced() throws SQLException {
+    Factory factory = new Factory();
+    ConnectionPool pool = pool(factory, 1, 0);
+    pool.borrow().close();
+    factory.valid = false;
+
+    pool.borrow().close();
+
+    assertEquals(2, factory.closed.size());
+    assertTrue(factory.closed.get(0).get());
+    assertEquals(1, pool.getStats().getValidationFailures());
+  }
+
+  @Test
+  void closeClosesIdleConnectionsAndRefusesBorrows() throws SQLException {
+    Factory factory = new Factory();
+    ConnectionPool pool = pool(factory, 2, HOUR);
+    Connection inUse = pool.borrow();
+    pool.borrow().close();
+
+    pool.close();
+
+    assertThrows(SQLException.class, pool::borrow);
+    assertTrue(factory.closed.get(1).get());
+    assertFalse(factory.closed.get(0).get());
+    inUse.close();
+    assertTrue(factory.closed.get(0).get());
+  }
+}
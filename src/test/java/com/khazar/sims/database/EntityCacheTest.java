@@ -0,0 +1,135 @@
+package com.khazar.sims.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class EntityCacheTest {
+  private static final long HOUR = 60 * 60_000;
+
+  /* Mutable row with a copy constructor, like the DTOs */
+  private static final class Row {
+    private final int id;
+    private String name;
+
+    Row(int id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    Row(Row other) {
+      this(other.id, other.name);
+    }
+  }
+
+  private static EntityCache<Row> cache(int maxSize, long ttlMillis) {
+    return new EntityCache<>("rows", maxSize, ttlMillis, Row::new);
+  }
+
+  @Test
+  void getReturnsACopyThatCallersMayEdit() {
+    EntityCache<Row> cache = cache(10, HOUR);
+    Row original = new Row(1, "Physics");
+    cache.put(1, original, cache.generation());
+    original.name = "edited before the cache was read";
+
+    Row first = cache.get(1);
+    first.name = "edited by a form";
+
+    assertEquals("Physics", cache.get(1).name);
+    assertNotSame(first, cache.get(1));
+  }
+
+  @Test
+  void putWithAStaleGenerationIsIgnored() {
+    EntityCache<Row> cache = cache(10, HOUR);
+    long generation = cache.generation();
+
+    cache.invalidate(1); /* a write happened while the row was being read */
+    cache.put(1, new Row(1, "old"), generation);
+
+    assertNull(cache.get(1));
+  }
+
+  @Test
+  void invalidateDropsOnlyThatRowAndTheFullTableResult() {
+    EntityCache<Row> cache = cache(10, HOUR);
+    cache.putAll(rows(new Row(1, "a"), new Row(2, "b")), cache.generation());
+
+    cache.invalidate(1);
+
+    assertNull(cache.get(1));
+    assertEquals("b", cache.get(2).name);
+    assertNull(cache.getAll());
+  }
+
+  @Test
+  void invalidateAllDropsEverything() {
+    EntityCache<Row> cache = cache(10, HOUR);
+    cache.putAll(rows(new Row(1, "a"), new Row(2, "b")), cache.generation());
+
+    cache.invalidateAll();
+
+    assertNull(cache.get(1));
+    assertNull(cache.get(2));
+    assertNull(cache.getAll());
+  }
+
+  @Test
+  void getAllReturnsCopiesInOrder() {
+    EntityCache<Row> cache = cache(10, HOUR);
+    cache.putAll(rows(new Row(2, "b"), new Row(1, "a")), cache.generation());
+
+    List<Row> all = cache.getAll();
+    all.get(0).name = "edited";
+
+    assertEquals(List.of(2, 1), all.stream().map(row -> row.id).toList());
+    assertEquals("b", cache.getAll().get(0).name);
+  }
+
+  @Test
+  void leastRecentlyUsedRowIsEvicted() {
+    EntityCache<Row> cache = cache(2, HOUR);
+    cache.put(1, new Row(1, "a"), cache.generation());
+    cache.put(2, new Row(2, "b"), cache.generation());
+    cache.get(1);
+
+    cache.put(3, new Row(3, "c"), cache.generation());
+
+    assertNotNull(cache.get(1));
+    assertNull(cache.get(2));
+    assertNotNull(cache.get(3));
+    assertEquals(1, cache.getStats().getEvictions());
+  }
+
+  @Test
+  void tablesLargerThanTheCacheAreNotCachedAsAWhole() {
+    EntityCache<Row> cache = cache(1, HOUR);
+
+    cache.putAll(rows(new Row(1, "a"), new Row(2, "b")), cache.generation());
+
+    assertNull(cache.getAll());
+  }
+
+  @Test
+  void expiredRowsMiss() {
+    EntityCache<Row> cache = cache(10, 0);
+    cache.put(1, new Row(1, "a"), cache.generation());
+
+    assertNull(cache.get(1));
+    assertEquals(1, cache.getStats().getExpirations());
+  }
+
+  private static Map<Integer, Row> rows(Row... rows) {
+    Map<Integer, Row> byId = new LinkedHashMap<>();
+    for (Row row : rows) byId.put(row.id, row);
+    return byId;
+  }
+}
@@ -0,0 +1,96 @@
+package com.khazar.sims.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class QueryContextTest {
+
+  @Test
+  void runWithBindsTheContextAndRestoresThePreviousOne() {
+    QueryContext outer = new QueryContext();
+    QueryContext inner = new QueryContext();
+
+    outer.runWith(() -> {
+      inner.runWith(() -> assertSame(inner, QueryContext.current()));
+      assertSame(outer, QueryContext.current());
+    });
+
+    assertNull(QueryContext.current());
+  }
+
+  @Test
+  void cancelCancelsRunningStatementsAndRejectsNewOnes() throws SQLException {
+    QueryContext context = new QueryContext();
+    AtomicInteger cancels = new AtomicInteger();
+    Statement running = statement(cancels);
+    context.begin(running);
+
+    context.cancel();
+
+    assertEquals(1, cancels.get());
+    SQLException rejected = assertThrows(SQLException.class, () -> context.begin(statement(cancels)));
+    assertEquals("70100", rejected.getSQLState());
+  }
+
+  @Test
+  void finishedStatementsAreNotCancelled() throws SQLException {
+    QueryContext context = new QueryContext();
+    AtomicInteger cancels = new AtomicInteger();
+    Statement done = statement(cancels);
+    context.begin(done);
+    context.end(done);
+
+    context.cancel();
+
+    assertEquals(0, cancels.get());
+  }
+
+  @Test
+  void cancelListenersRunOnce() {
+    QueryContext context = new QueryContext();
+    AtomicInteger runs = new AtomicInteger();
+    context.onCancel(runs::incrementAndGet);
+
+    context.cancel();
+    context.cancel();
+
+    assertEquals(1, runs.get());
+    assertTrue(context.isCancelled());
+  }
+
+  @Test
+  void aListenerAddedAfterCancelRunsRightAway() {
+    QueryContext context = new QueryContext();
+    context.cancel();
+    AtomicInteger runs = new AtomicInteger();
+
+    context.onCancel(runs::incrementAndGet);
+
+    assertEquals(1, runs.get());
+  }
+
+  /* A statement that only counts cancel() calls */
+  private static Statement statement(AtomicInteger cancels) {
+    return (Statement) Proxy.newProxyInstance(
+      QueryContextTest.class.getClassLoader(), new Class<?>[] { Statement.class },
+      (proxy, method, args) -> switch (method.getName()) {
+        case "cancel" -> {
+          cancels.incrementAndGet();
+          yield null;
+        }
+        case "hashCode" -> System.identityHashCode(proxy);
+        case "equals" -> proxy == args[0];
+        default -> throw new UnsupportedOperationException(method.getName());
+      });
+  }
+}
@@ -0,0 +1,59 @@
+package com.khazar.sims.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class QueryTimeoutsTest {
+
+  @AfterEach
+  void tearDown() {
+    QueryTimeouts.configure(new Properties());
+  }
+
+  @Test
+  void methodTimeoutsFallBackToTheDefault() {
+    QueryTimeouts.configure(properties(
+      "db.queryTimeout.default", "12",
+      "db.queryTimeout.EnrollmentTable.getAll", " 5 "));
+
+    assertEquals(5, QueryTimeouts.forMethod("EnrollmentTable.getAll"));
+    assertEquals(12, QueryTimeouts.forMethod("UserTable.getAll"));
+  }
+
+  @Test
+  void invalidAndNegativeValuesAreIgnoredOrClamped() {
+    QueryTimeouts.configure(properties(
+      "db.queryTimeout.default", "soon",
+      "db.queryTimeout.UserTable.search", "-3"));
+
+    assertEquals(30, QueryTimeouts.forMethod("UserTable.getAll"));
+    assertEquals(0, QueryTimeouts.forMethod("UserTable.search"));
+  }
+
+  @Test
+  void statementsWithoutAKeyGetTheDefault() {
+    QueryTimeouts.configure(properties("db.queryTimeout.default", "7"));
+
+    assertEquals(7, QueryTimeouts.getDefault());
+  }
+
+  @Test
+  void resolvedTimeoutsAreDroppedWhenReconfigured() {
+    QueryTimeouts.configure(properties("db.queryTimeout.UserTable.getById", "7"));
+    QueryTimeouts.forMethod("UserTable.getById");
+
+    QueryTimeouts.configure(properties("db.queryTimeout.UserTable.getById", "9"));
+
+    assertEquals(9, QueryTimeouts.forMethod("UserTable.getById"));
+  }
+
+  private static Properties properties(String... pairs) {
+    Properties properties = new Properties();
+    for (int i = 0; i < pairs.length; i += 2) properties.setProperty(pairs[i], pairs[i + 1]);
+    return properties;
+  }
+}
@@ -0,0 +1,85 @@
+package com.khazar.sims.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SchemaMigratorTest {
+
+  @Test
+  void splitSeparatesStatementsOnTrailingSemicolons() {
+    String script = """
+      CREATE TABLE a (
+        id INT
+      );
+      INSERT INTO a VALUES (1);
+      """;
+
+    List<String> statements = SchemaMigrator.split(script);
+
+    assertEquals(2, statements.size());
+    assertEquals("CREATE TABLE a (\n  id INT\n);", statements.get(0));
+    assertEquals("INSERT INTO a VALUES (1);", statements.get(1));
+  }
+
+  @Test
+  void splitDropsBlankAndCommentLines() {
+    String script = """
+      -- header
+
+      CREATE INDEX i ON a (id);
+      -- between
+      DROP INDEX i ON a;
+      """;
+
+    List<String> statements = SchemaMigrator.split(script);
+
+    assertEquals(List.of("CREATE INDEX i ON a (id);", "DROP INDEX i ON a;"), statements);
+  }
+
+  @Test
+  void splitKeepsAnUnterminatedLastStatement() {
+    assertEquals(List.of("SELECT 1"), SchemaMigrator.split("SELECT 1\n"));
+  }
+
+  @Test
+  void checksumIgnoresLineEndings() {
+    assertEquals(SchemaMigrator.checksum("a;\nb;\n"), SchemaMigrator.checksum("a;\r\nb;\r\n"));
+  }
+
+  @Test
+  void checksumChangesWithTheScript() {
+    String checksum = SchemaMigrator.checksum("CREATE INDEX i ON a (id);");
+
+    assertEquals(64, checksum.length());
+    assertNotEquals(checksum, SchemaMigrator.checksum("CREATE INDEX i ON a (id, name);"));
+  }
+
+  @Test
+  void shippedScriptsSplitIntoStatements() throws IOException {
+    for (String name : List.of("V1__baseline.sql", "V2__indexes.sql", "V3__user_search.sql")) {
+      List<String> statements = SchemaMigrator.split(script(name));
+
+      assertFalse(statements.isEmpty(), name);
+      for (String statement : statements) {
+        assertTrue(statement.endsWith(";"), name + ": " + statement);
+      }
+    }
+  }
+
+  private static String script(String name) throws IOException {
+    try (InputStream in = SchemaMigrator.class.getResourceAsStream("/db/migration/" + name)) {
+      assertNotNull(in, name);
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.khazar.sims.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class WriteBehindQueueTest {
+  /* Long enough that the timer never fires during a test; flushes are explicit */
+  private static final long NEVER = 60 * 60_000;
+
+  /* Records every batch it is given */
+  private static final class Recorder implements WriteBehindQueue.Flusher<Integer, String> {
+    final List<Map<Integer, String>> batches = new ArrayList<>();
+    final AtomicBoolean failNext = new AtomicBoolean(false);
+
+    @Override
+    public synchronized void flush(Map<Integer, String> batch) throws SQLException {
+      if (failNext.getAndSet(false))
+        throw new SQLException("deadlock");
+      batches.add(new LinkedHashMap<>(batch));
+    }
+  }
+
+  @Test
+  void writesToTheSameKeyCoalesce() throws SQLException {
+    Recorder recorder = new Recorder();
+    WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>("test", recorder, NEVER, 100);
+
+    queue.enqueue(1, "a");
+    queue.enqueue(2, "b");
+    queue.enqueue(1, "c");
+    assertEquals(2, queue.getDepth());
+    queue.flush();
+
+    assertEquals(List.of(Map.of(1, "c", 2, "b")), recorder.batches);
+    assertEquals(0, queue.getDepth());
+    queue.shutdown(1_000);
+  }
+
+  @Test
+  void flushSplitsIntoBatchesOfAtMostMaxBatch() throws SQLException {
+    Recorder recorder = new Recorder();
+    WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>("test", recorder, NEVER, 2);
+    /* Early full-batch flushes may run meanwhile; either way no batch exceeds the limit */
+    for (int i = 0; i < 5; i++) queue.enqueue(i, "v" + i);
+    queue.flush();
+
+    int total = 0;
+    for (Map<Integer, String> batch : recorder.batches) {
+      assertTrue(batch.size() <= 2, "batch of " + batch.size());
+      total += batch.size();
+    }
+    assertEquals(5, total);
+    queue.shutdown(1_000);
+  }
+
+  @Test
+  void aFullBatchFlushesWithoutWaitingForTheTimer() throws InterruptedException {
+    CountDownLatch flushed = new CountDownLatch(1);
+    WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>("test", batch -> flushed.countDown(), NEVER, 3);
+
+    queue.enqueue(1, "a");
+    queue.enqueue(2, "b");
+    queue.enqueue(3, "c");
+
+    assertTrue(flushed.await(5, TimeUnit.SECONDS));
+    queue.shutdown(1_000);
+  }
+
+  @Test
+  void aFailedBatchIsQueuedAgainBehindNewerValues() throws SQLException {
+    Recorder recorder = new Recorder();
+    WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>("test", recorder, NEVER, 100);
+    queue.enqueue(1, "old");
+    queue.enqueue(2, "b");
+
+    recorder.failNext.set(true);
+    assertThrows(SQLException.class, queue::flush);
+    assertEquals(2, queue.getDepth());
+
+    queue.enqueue(1, "new");
+    queue.flush();
+
+    assertEquals(List.of(Map.of(1, "new", 2, "b")), recorder.batches);
+    queue.shutdown(1_000);
+  }
+
+  @Test
+  void shutdownDrainsPendingWritesAndRejectsLaterOnes() {
+    Recorder recorder = new Recorder();
+    WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>("test", recorder, NEVER, 100);
+    queue.enqueue(1, "a");
+
+    queue.shutdown(1_000);
+
+    assertEquals(List.of(Map.of(1, "a")), recorder.batches);
+    assertFalse(queue.enqueue(2, "b"));
+    assertEquals(0, queue.getDepth());
+  }
+
+  @Test
+  void rejectsInvalidSettings() {
+    assertThrows(IllegalArgumentException.class, () -> new WriteBehindQueue<Integer, String>("test", batch -> {}, NEVER, 0));
+    assertThrows(IllegalArgumentException.class, () -> new WriteBehindQueue<Integer, String>("test", batch -> {}, 0, 10));
+  }
+}
@@ -0,0 +1,78 @@
+package com.khazar.sims.database.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class GradebookTest {
+  private static final int M = Gradebook.MISSING;
+
+  /* Two students x three assessments (max 10, 20, 70) */
+  private static Gradebook sample() {
+    return new Gradebook(7,
+      new int[] { 101, 102 },
+      new String[] { "Aysel Aliyeva", "Murad Huseynov" },
+      new String[] { "Quiz", "Midterm", "Final" },
+      new int[] { 10, 20, 70 },
+      new int[] {
+        8, 15, 60,
+        M, 10, M
+      });
+  }
+
+  @Test
+  void cellsAreReadRowMajor() {
+    Gradebook gradebook = sample();
+
+    assertEquals(2, gradebook.getStudentCount());
+    assertEquals(3, gradebook.getAssessmentCount());
+    assertEquals(60, gradebook.getScore(0, 2));
+    assertEquals(10, gradebook.getScore(1, 1));
+    assertEquals(Gradebook.MISSING, gradebook.getScore(1, 0));
+    assertEquals(102, gradebook.getStudentId(1));
+    assertEquals("Midterm", gradebook.getAssessmentName(1));
+  }
+
+  @Test
+  void totalsSkipMissingScores() {
+    Gradebook gradebook = sample();
+
+    assertEquals(83, gradebook.getTotal(0));
+    assertEquals(10, gradebook.getTotal(1));
+  }
+
+  @Test
+  void percentageIsOfTheAssessmentsTheStudentHasAScoreFor() {
+    Gradebook gradebook = sample();
+
+    assertEquals(83.0, gradebook.getPercentage(0), 1e-9);
+    assertEquals(50.0, gradebook.getPercentage(1), 1e-9);
+  }
+
+  @Test
+  void averagesCountOnlyStudentsWithAScore() {
+    Gradebook gradebook = sample();
+
+    assertEquals(8.0, gradebook.getAverage(0), 1e-9);
+    assertEquals(12.5, gradebook.getAverage(1), 1e-9);
+    assertEquals(60.0, gradebook.getAverage(2), 1e-9);
+  }
+
+  @Test
+  void emptyColumnsAndRowsAreNaN() {
+    Gradebook gradebook = new Gradebook(1, new int[] { 1 }, new String[] { "A" },
+      new String[] { "Quiz" }, new int[] { 10 }, new int[] { M });
+
+    assertTrue(Double.isNaN(gradebook.getAverage(0)));
+    assertTrue(Double.isNaN(gradebook.getPercentage(0)));
+    assertEquals(0, gradebook.getTotal(0));
+  }
+
+  @Test
+  void scoreMatrixMustMatchTheDimensions() {
+    assertThrows(IllegalArgumentException.class, () -> new Gradebook(1, new int[] { 1, 2 },
+      new String[] { "A", "B" }, new String[] { "Quiz" }, new int[] { 10 }, new int[] { 5 }));
+  }
+}
@@ -0,0 +1,92 @@
+package com.khazar.sims.database.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class InClauseTest {
+
+  @Test
+  void chunksDropDuplicatesAndNullsKeepingFirstSeenOrder() {
+    List<List<Integer>> chunks = InClause.chunks(Arrays.asList(3, 1, null, 3, 2, 1));
+
+    assertEquals(List.of(List.of(3, 1, 2)), chunks);
+  }
+
+  @Test
+  void chunksSplitAtMaxChunk() {
+    List<Integer> keys = IntStream.range(0, InClause.MAX_CHUNK * 2 + 5).boxed().toList();
+
+    List<List<Integer>> chunks = InClause.chunks(keys);
+
+    assertEquals(3, chunks.size());
+    assertEquals(InClause.MAX_CHUNK, chunks.get(0).size());
+    assertEquals(InClause.MAX_CHUNK, chunks.get(1).size());
+    assertEquals(5, chunks.get(2).size());
+  }
+
+  @Test
+  void chunksOfNoKeysIsEmpty() {
+    assertTrue(InClause.chunks(List.<Integer>of()).isEmpty());
+  }
+
+  @Test
+  void bucketRoundsUpToAFixedSize() {
+    assertEquals(1, InClause.bucket(1));
+    assertEquals(4, InClause.bucket(2));
+    assertEquals(16, InClause.bucket(16));
+    assertEquals(64, InClause.bucket(17));
+    assertEquals(InClause.MAX_CHUNK, InClause.bucket(InClause.MAX_CHUNK));
+    assertThrows(IllegalArgumentException.class, () -> InClause.bucket(InClause.MAX_CHUNK + 1));
+  }
+
+  @Test
+  void placeholdersMatchTheBucketSize() {
+    assertEquals("?", InClause.placeholders(List.of(7)));
+    assertEquals("?, ?, ?, ?", InClause.placeholders(List.of(7, 8, 9)));
+  }
+
+  @Test
+  void bindPadsWithTheLastKey() throws Exception {
+    Map<Integer, Object> bound = new TreeMap<>();
+
+    int next = InClause.bind(recording(bound), 2, List.of(10, 20, 30));
+
+    assertEquals(6, next);
+    assertEquals(Map.of(2, 10, 3, 20, 4, 30, 5, 30), bound);
+  }
+
+  @Test
+  void bindStringsPadsWithTheLastKey() throws Exception {
+    Map<Integer, Object> bound = new TreeMap<>();
+
+    int next = InClause.bindStrings(recording(bound), 1, List.of("a", "b"));
+
+    assertEquals(5, next);
+    assertEquals(List.of("a", "b", "b", "b"), new ArrayList<>(bound.values()));
+  }
+
+  /* A statement that only records setInt/setString calls */
+  private static PreparedStatement recording(Map<Integer, Object> bound) {
+    return (PreparedStatement) Proxy.newProxyInstance(
+      InClauseTest.class.getClassLoader(), new Class<?>[] { PreparedStatement.class },
+      (proxy, method, args) -> {
+        if (method.getName().equals("setInt") || method.getName().equals("setString")) {
+          bound.put((Integer) args[0], args[1]);
+          return null;
+        }
+        throw new UnsupportedOperationException(method.getName());
+      });
+  }
+}